@@ -39,6 +39,75 @@ CREATE TABLE `accounts` (
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `forecast_state`
+-- (bookmark of the reorder forecast job, see tools.RunReorderForecast)
+--
+
+CREATE TABLE `forecast_state` (
+  `job` varchar(50) NOT NULL,
+  `last_sale_id` bigint(20) NOT NULL DEFAULT 0,
+  `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `forecast_sale_gap`
+-- (sale_ids below the forecast bookmark that were not visible yet; re-read by the next run)
+--
+
+CREATE TABLE `forecast_sale_gap` (
+  `sale_id` bigint(20) NOT NULL,
+  `seen_at` timestamp NOT NULL DEFAULT current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `product_daily_sales`
+-- (units sold per product and day; maintained by the reorder forecast job)
+--
+
+CREATE TABLE `product_daily_sales` (
+  `product_id` int(11) NOT NULL,
+  `sale_date` date NOT NULL,
+  `units` int(11) NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `product_sales_profile`
+-- (units sold per product by weekday (0 = Monday) and hour, all history)
+--
+
+CREATE TABLE `product_sales_profile` (
+  `product_id` int(11) NOT NULL,
+  `weekday` tinyint(4) NOT NULL,
+  `sale_hour` tinyint(4) NOT NULL,
+  `units` bigint(20) NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `reorder_forecast`
+--
+
+CREATE TABLE `reorder_forecast` (
+  `product_id` int(11) NOT NULL,
+  `avg_daily_7` decimal(12,3) NOT NULL DEFAULT 0.000,
+  `avg_daily_28` decimal(12,3) NOT NULL DEFAULT 0.000,
+  `weekday_factor` decimal(6,3) NOT NULL DEFAULT 1.000,
+  `peak_weekday` tinyint(4) DEFAULT NULL,
+  `peak_hour` tinyint(4) DEFAULT NULL,
+  `suggested_reorder_level` int(11) NOT NULL DEFAULT 0,
+  `computed_at` datetime NOT NULL DEFAULT current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `products`
 --
@@ -52,6 +121,7 @@ CREATE TABLE `products` (
   `cost` decimal(12,2) DEFAULT NULL,
   `stock_qty` int(11) NOT NULL DEFAULT 0,
   `reorder_level` int(11) DEFAULT 0,
+  `is_active` tinyint(1) NOT NULL DEFAULT 1,
   `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
   `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp()
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -75,7 +145,36 @@ CREATE TABLE `sales` (
   `sale_datetime` datetime DEFAULT current_timestamp(),
   `total_amount` decimal(14,2) NOT NULL,
   `payment_method` varchar(50) DEFAULT NULL,
-  `remarks` varchar(255) DEFAULT NULL
+  `remarks` varchar(255) DEFAULT NULL,
+  `client_ref` char(36) DEFAULT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `sales_daily_rollup`
+-- (maintained by SaleDAO; backfill with tools.RebuildSalesRollup)
+--
+
+CREATE TABLE `sales_daily_rollup` (
+  `sale_date` date NOT NULL,
+  `payment_method` varchar(50) NOT NULL DEFAULT '',
+  `sale_count` int(11) NOT NULL DEFAULT 0,
+  `total_amount` decimal(16,2) NOT NULL DEFAULT 0.00
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `sales_hourly_rollup`
+--
+
+CREATE TABLE `sales_hourly_rollup` (
+  `sale_date` date NOT NULL,
+  `sale_hour` tinyint(4) NOT NULL,
+  `payment_method` varchar(50) NOT NULL DEFAULT '',
+  `sale_count` int(11) NOT NULL DEFAULT 0,
+  `total_amount` decimal(16,2) NOT NULL DEFAULT 0.00
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
 -- --------------------------------------------------------
@@ -107,6 +206,22 @@ CREATE TABLE `stock_adjustments` (
   `created_at` timestamp NOT NULL DEFAULT current_timestamp()
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
+-- --------------------------------------------------------
+
+--
+-- Structure for view `reorder_forecast_report`
+--
+
+CREATE VIEW `reorder_forecast_report` AS
+SELECT p.`product_id`, p.`sku`, p.`name`, p.`category`, p.`stock_qty`, p.`reorder_level`,
+       f.`suggested_reorder_level`, f.`suggested_reorder_level` - p.`reorder_level` AS `reorder_level_change`,
+       f.`avg_daily_7`, f.`avg_daily_28`, f.`weekday_factor`, f.`peak_weekday`, f.`peak_hour`,
+       CASE WHEN f.`avg_daily_28` > 0 THEN ROUND(p.`stock_qty` / f.`avg_daily_28`, 1) END AS `days_of_cover`,
+       f.`computed_at`
+FROM `products` p
+JOIN `reorder_forecast` f ON f.`product_id` = p.`product_id`
+WHERE p.`is_active` = 1;
+
 --
 -- Indexes for dumped tables
 --
@@ -118,6 +233,37 @@ ALTER TABLE `accounts`
   ADD PRIMARY KEY (`account_id`),
   ADD UNIQUE KEY `username` (`username`);
 
+--
+-- Indexes for table `forecast_state`
+--
+ALTER TABLE `forecast_state`
+  ADD PRIMARY KEY (`job`);
+
+--
+-- Indexes for table `forecast_sale_gap`
+--
+ALTER TABLE `forecast_sale_gap`
+  ADD PRIMARY KEY (`sale_id`);
+
+--
+-- Indexes for table `product_daily_sales`
+--
+ALTER TABLE `product_daily_sales`
+  ADD PRIMARY KEY (`product_id`,`sale_date`),
+  ADD KEY `sale_date` (`sale_date`);
+
+--
+-- Indexes for table `product_sales_profile`
+--
+ALTER TABLE `product_sales_profile`
+  ADD PRIMARY KEY (`product_id`,`weekday`,`sale_hour`);
+
+--
+-- Indexes for table `reorder_forecast`
+--
+ALTER TABLE `reorder_forecast`
+  ADD PRIMARY KEY (`product_id`);
+
 --
 -- Indexes for table `products`
 --
@@ -130,7 +276,21 @@ ALTER TABLE `products`
 --
 ALTER TABLE `sales`
   ADD PRIMARY KEY (`sale_id`),
-  ADD KEY `account_id` (`account_id`);
+  ADD KEY `account_id` (`account_id`),
+  ADD UNIQUE KEY `client_ref` (`client_ref`),
+  ADD KEY `sale_datetime_id` (`sale_datetime`,`sale_id`);
+
+--
+-- Indexes for table `sales_daily_rollup`
+--
+ALTER TABLE `sales_daily_rollup`
+  ADD PRIMARY KEY (`sale_date`,`payment_method`);
+
+--
+-- Indexes for table `sales_hourly_rollup`
+--
+ALTER TABLE `sales_hourly_rollup`
+  ADD PRIMARY KEY (`sale_date`,`sale_hour`,`payment_method`);
 
 --
 -- Indexes for table `sale_items`
@@ -1,8 +1,12 @@
+import dao.OfflineMode;
+import db.PasswordUtil;
 import ui.LoginWindow;
 import javax.swing.SwingUtilities;
 
 public class Main {
     public static void main(String[] args) {
+        OfflineMode.resumePendingReplay(); // Sync sales left in the offline journal
+        PasswordUtil.calibrateInBackground(); // BCrypt cost for this machine, before the first login
         SwingUtilities.invokeLater(() -> {
             new LoginWindow().setVisible(true);
         });
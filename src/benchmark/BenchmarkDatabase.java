@@ -0,0 +1,272 @@
+package benchmark;
+
+import dao.AccountDAO;
+import dao.ProductDAO;
+import dao.SaleDAO;
+import db.DatabaseConnection;
+import models.Account;
+import models.Money;
+import models.Product;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prepares the database used by the benchmarks.
+ *
+ * The benchmarks write products, sales and an account, so they only run against a scratch
+ * MySQL database given with -Dpos.db.url (see {@link #requireScratchDatabase}). For an empty
+ * schema add -Dpos.bench.loadSchema=true to create the tables from pos_system.sql first.
+ *
+ * Seeded sales are owned by -Dpos.bench.accountId, or by a "bench_user" STAFF account that
+ * gets a new random password on every run, so it cannot be used to log in.
+ */
+class BenchmarkDatabase {
+
+    private static final String BENCH_USERNAME = "bench_user";
+
+    /**
+     * Refuse to run against the default (live) database unless -Dpos.bench.allowWrites=true.
+     */
+    static void requireScratchDatabase() {
+        if (DatabaseConnection.isDefaultDatabase() && !Boolean.getBoolean("pos.bench.allowWrites")) {
+            throw new IllegalStateException("Benchmarks write test data: point them at a scratch database with "
+                    + "-Dpos.db.url=..., or pass -Dpos.bench.allowWrites=true to use the default database anyway");
+        }
+    }
+
+    /**
+     * Run pos_system.sql statement by statement (comments and MySQL version hints skipped).
+     */
+    static void loadSchema(Path sqlFile) throws IOException, SQLException {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : Files.readAllLines(sqlFile, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--") || trimmed.startsWith("/*!")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                if (sql.equalsIgnoreCase("START TRANSACTION") || sql.equalsIgnoreCase("COMMIT")) {
+                    continue; // Pooled connections run in auto-commit
+                }
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    throw new SQLException("Schema statement failed: " + sql, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Account all seeded sales belong to: -Dpos.bench.accountId if given (must exist),
+     * otherwise bench_user, created on first use. bench_user's password is replaced by a
+     * random one on every run and never shown.
+     */
+    static int benchAccountId() throws Exception {
+        AccountDAO dao = new AccountDAO();
+        Integer configured = Integer.getInteger("pos.bench.accountId");
+        if (configured != null) {
+            if (dao.getAccountById(configured) == null) {
+                throw new IllegalArgumentException("pos.bench.accountId " + configured + " does not exist");
+            }
+            return configured;
+        }
+
+        for (Account a : dao.getAllAccounts()) {
+            if (BENCH_USERNAME.equals(a.getUsername())) {
+                a.setPassword(randomPassword());
+                dao.updateAccount(a);
+                return a.getAccountId();
+            }
+        }
+
+        Account acc = new Account();
+        acc.setUsername(BENCH_USERNAME);
+        acc.setPassword(randomPassword());
+        acc.setRole("STAFF");
+        acc.setFirstName("Benchmark");
+        acc.setLastName("User");
+        dao.addAccount(acc);
+        for (Account a : dao.getAllAccounts()) {
+            if (BENCH_USERNAME.equals(a.getUsername())) {
+                return a.getAccountId();
+            }
+        }
+        throw new SQLException("Benchmark account was not created");
+    }
+
+    private static String randomPassword() {
+        byte[] bytes = new byte[24];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * Create {@code count} products with effectively unlimited stock for checkout runs.
+     */
+    static List<Product> createProducts(int count) throws Exception {
+        return createProducts("BENCH-" + System.currentTimeMillis() + "-", count);
+    }
+
+    /**
+     * {@link #createProducts(int)} with SKUs starting with {@code prefix}, so they can be
+     * removed with {@link #deleteProducts} once their sales are voided.
+     */
+    static List<Product> createProducts(String prefix, int count) throws Exception {
+        List<Product> products = new ArrayList<>(count);
+        ProductDAO dao = new ProductDAO();
+        for (int i = 0; i < count; i++) {
+            Product p = new Product();
+            p.setSku(prefix + i);
+            p.setName("Benchmark Item " + i);
+            p.setCategory("Benchmark");
+            p.setPriceCents(100 + (i % 50) * 100);
+            p.setCostCents(50);
+            p.setStockQty(1_000_000_000);
+            dao.addProduct(p);
+            products.add(p);
+        }
+        return products;
+    }
+
+    /**
+     * Top the active catalog up to {@code target} products with batched inserts (for scans
+     * too large for createProducts), with SKUs starting with {@code skuPrefix}. Bypasses
+     * ProductDAO, so callers should drop ProductCache afterwards, and remove the rows again
+     * with {@link #deleteProducts}.
+     * @return the number of active products
+     */
+    static long seedProducts(String skuPrefix, long target) throws SQLException {
+        long existing;
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM products WHERE is_active = TRUE")) {
+            rs.next();
+            existing = rs.getLong(1);
+        }
+        long missing = target - existing;
+        if (missing <= 0) {
+            return existing;
+        }
+
+        String sql = "INSERT INTO products (sku, name, category, price, cost, stock_qty, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (long i = 0; i < missing; i++) {
+                stmt.setString(1, skuPrefix + i);
+                stmt.setString(2, "Seeded Item " + i);
+                stmt.setString(3, "Seed " + (i % 20));
+                Money.write(stmt, 4, 100 + (i % 50) * 100);
+                Money.write(stmt, 5, 50);
+                stmt.setInt(6, 1_000);
+                stmt.setInt(7, 10);
+                stmt.addBatch();
+                if ((i + 1) % 5_000 == 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            stmt.executeBatch();
+            conn.commit();
+        }
+        return target;
+    }
+
+    /**
+     * Void the given sales (stock and daily/hourly rollups restored), in chunks.
+     * @return the number of sales voided
+     */
+    static int voidSales(List<Integer> saleIds) throws Exception {
+        SaleDAO dao = new SaleDAO();
+        int voided = 0;
+        for (int i = 0; i < saleIds.size(); i += 1_000) {
+            voided += dao.voidSales(saleIds.subList(i, Math.min(i + 1_000, saleIds.size())));
+        }
+        return voided;
+    }
+
+    /**
+     * Delete the products whose SKU starts with {@code skuPrefix} (e.g. after seedProducts).
+     * @return the number of rows deleted
+     */
+    static int deleteProducts(String skuPrefix) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM products WHERE sku LIKE ?")) {
+            stmt.setString(1, skuPrefix.replace("%", "\\%").replace("_", "\\_") + "%");
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Top the sales table up to {@code target} rows, spread evenly over the last
+     * {@code days} days. Inserts headers only (no items or rollups): enough for the
+     * report and export queries, and fast to load.
+     */
+    static long seedSales(int accountId, long target, int days) throws SQLException {
+        long existing;
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sales")) {
+            rs.next();
+            existing = rs.getLong(1);
+        }
+        long missing = target - existing;
+        if (missing <= 0) {
+            return existing;
+        }
+
+        String sql = "INSERT INTO sales (account_id, sale_datetime, total_amount, payment_method, remarks) VALUES (?, ?, ?, ?, ?)";
+        String[] methods = {"CASH", "CARD", "GCASH"};
+        Random random = new Random(42);
+        LocalDateTime start = LocalDate.now().minusDays(days - 1).atStartOfDay();
+        long spanSeconds = days * 86_400L;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (long i = 0; i < missing; i++) {
+                stmt.setInt(1, accountId);
+                stmt.setTimestamp(2, Timestamp.valueOf(start.plusSeconds(i * spanSeconds / missing)));
+                Money.write(stmt, 3, 1_000 + random.nextInt(500_000));
+                stmt.setString(4, methods[(int) (i % methods.length)]);
+                stmt.setString(5, "seed");
+                stmt.addBatch();
+                if ((i + 1) % 5_000 == 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            stmt.executeBatch();
+            conn.commit();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,162 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal average-time benchmark runner for code that needs the application's own
+ * classpath and database. This is a custom timing loop, not JMH: one JVM, no forks, and
+ * results are only folded into a hash to keep them live. Compare its numbers with other
+ * runs of this runner on the same machine, not with JMH results.
+ *
+ * Each iteration calls the operation repeatedly for at least {@code iterationMillis} and
+ * records the mean time per call. Results are printed as a table and can be written as
+ * JSON (this runner's own format, see {@link #writeJson}).
+ */
+public class BenchmarkRunner {
+
+    /**
+     * The measured operation. Keep setup out of it; return something from real work so it
+     * is not optimised away (results are consumed by the runner).
+     */
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    public static final class Result {
+        final String benchmark;
+        final Map<String, String> params;
+        final double[] samples; // ns/op per measurement iteration
+        final double score;
+        final double scoreError;
+
+        Result(String benchmark, Map<String, String> params, double[] samples) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.samples = samples;
+
+            double sum = 0;
+            for (double s : samples) {
+                sum += s;
+            }
+            score = sum / samples.length;
+
+            double sq = 0;
+            for (double s : samples) {
+                sq += (s - score) * (s - score);
+            }
+            double stdDev = samples.length > 1 ? Math.sqrt(sq / (samples.length - 1)) : 0;
+            // Half-width of a ~99.9% confidence interval (normal approximation)
+            scoreError = 3.29 * stdDev / Math.sqrt(samples.length);
+        }
+    }
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+    private final List<Result> results = new ArrayList<>();
+    private long blackhole;
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    /**
+     * @param params benchmark parameters as alternating name/value pairs, e.g. "cartItems", "10"
+     */
+    public Result run(String benchmark, Operation op, String... params) throws Exception {
+        Map<String, String> paramMap = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < params.length; i += 2) {
+            paramMap.put(params[i], params[i + 1]);
+        }
+
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(op);
+        }
+        double[] samples = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            samples[i] = iteration(op);
+        }
+
+        Result r = new Result(benchmark, paramMap, samples);
+        results.add(r);
+        System.out.printf("%-40s %-22s %16.1f ± %12.1f ns/op%n", benchmark, paramMap, r.score, r.scoreError);
+        return r;
+    }
+
+    private double iteration(Operation op) throws Exception {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+        long ops = 0;
+        long start = System.nanoTime();
+        long now;
+        do {
+            Object result = op.run();
+            blackhole += result != null ? result.hashCode() : 0;
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return (now - start) / (double) ops;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Write all results as JSON in this runner's own format (not JMH's):
+     * <pre>
+     * { "format": "pos-benchmark-runner/1", "runner": "custom timing loop, single JVM, no forks",
+     *   "warmupIterations": 3, "measurementIterations": 5, "iterationMillis": 2000,
+     *   "results": [ { "benchmark": ..., "params": {...}, "meanNanosPerOp": ...,
+     *                  "error99_9": ..., "samplesNanosPerOp": [...] } ] }
+     * </pre>
+     */
+    public void writeJson(Path file) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("{\n");
+            w.write("  \"format\": \"pos-benchmark-runner/1\",\n");
+            w.write("  \"runner\": \"custom timing loop, single JVM, no forks\",\n");
+            w.write("  \"warmupIterations\": " + warmupIterations + ",\n");
+            w.write("  \"measurementIterations\": " + measurementIterations + ",\n");
+            w.write("  \"iterationMillis\": " + iterationMillis + ",\n");
+            w.write("  \"results\": [\n");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                w.write("    {\n");
+                w.write("      \"benchmark\": " + quote(r.benchmark) + ",\n");
+                w.write("      \"params\": {");
+                int p = 0;
+                for (Map.Entry<String, String> e : r.params.entrySet()) {
+                    w.write((p++ > 0 ? ", " : " ") + quote(e.getKey()) + ": " + quote(e.getValue()));
+                }
+                w.write(r.params.isEmpty() ? "},\n" : " },\n");
+                w.write("      \"meanNanosPerOp\": " + r.score + ",\n");
+                w.write("      \"error99_9\": " + r.scoreError + ",\n");
+                w.write("      \"samplesNanosPerOp\": [");
+                for (int s = 0; s < r.samples.length; s++) {
+                    w.write((s > 0 ? ", " : "") + r.samples[s]);
+                }
+                w.write("]\n");
+                w.write(i < results.size() - 1 ? "    },\n" : "    }\n");
+            }
+            w.write("  ]\n");
+            w.write("}\n");
+        }
+        if (blackhole == 42) {
+            System.out.println(); // Keeps results observable to the JIT
+        }
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
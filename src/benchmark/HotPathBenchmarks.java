@@ -0,0 +1,132 @@
+package benchmark;
+
+import dao.ProductCache;
+import dao.ProductDAO;
+import dao.SaleDAO;
+import db.DatabaseConnection;
+import db.PasswordUtil;
+import models.Product;
+import models.Sale;
+import models.SaleItem;
+import pdf_export.PDFExporter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks for the hot paths the POS depends on:
+ * product row mapping, checkout (addSale) with 1/10/100-item carts, the sales date range
+ * query over a large sales table, PDF/CSV report export and password verification.
+ *
+ * Usage: java benchmark.HotPathBenchmarks [results.json]
+ *
+ * Writes test data (products with unlimited stock, sales headers without items or rollups),
+ * so it only runs against a scratch database: -Dpos.db.url=... (see BenchmarkDatabase).
+ *
+ * Settings (system properties):
+ *   pos.bench.loadSchema   create tables from pos_system.sql first (empty database only)
+ *   pos.bench.schema       path to the schema file (default pos_system.sql)
+ *   pos.bench.sales        sales rows to seed (default 1000000)
+ *   pos.bench.days         days the seeded sales are spread over (default 365)
+ *   pos.bench.products     catalog size for the mapping benchmark (default 1000)
+ *   pos.bench.accountId    account the sales are recorded under (default: bench_user)
+ *   pos.bench.allowWrites  run even against the default database
+ *   pos.bench.warmup / pos.bench.iterations / pos.bench.iterationMillis
+ *
+ * Timings come from BenchmarkRunner, a custom loop rather than JMH; its JSON results file
+ * lets two releases be compared side by side on the same machine.
+ */
+public class HotPathBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        Path out = Paths.get(args.length > 0 ? args[0] : "benchmark-results.json");
+        BenchmarkDatabase.requireScratchDatabase();
+
+        if (Boolean.getBoolean("pos.bench.loadSchema")) {
+            BenchmarkDatabase.loadSchema(Paths.get(System.getProperty("pos.bench.schema", "pos_system.sql")));
+        }
+
+        int days = Integer.getInteger("pos.bench.days", 365);
+        long salesRows = Long.getLong("pos.bench.sales", 1_000_000L);
+        int catalogSize = Integer.getInteger("pos.bench.products", 1000);
+
+        System.out.println("Preparing data...");
+        int accountId = BenchmarkDatabase.benchAccountId();
+        List<Product> products = BenchmarkDatabase.createProducts(catalogSize);
+        BenchmarkDatabase.seedSales(accountId, salesRows, days);
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+                Integer.getInteger("pos.bench.warmup", 3),
+                Integer.getInteger("pos.bench.iterations", 5),
+                Long.getLong("pos.bench.iterationMillis", 2_000L));
+
+        // --- ProductDAO row mapping (cache dropped so every call maps rows from the database) ---
+        ProductDAO productDAO = new ProductDAO();
+        runner.run("ProductDAO.getAllProducts.uncached", () -> {
+            ProductCache.getInstance().invalidateAll();
+            return productDAO.getAllProducts().size();
+        }, "products", String.valueOf(catalogSize));
+
+        // --- Checkout ---
+        SaleDAO saleDAO = new SaleDAO();
+        for (int cartItems : new int[]{1, 10, 100}) {
+            List<Product> cart = products.subList(0, Math.min(cartItems, products.size()));
+            runner.run("SaleDAO.addSale", () -> {
+                Sale sale = newSale(accountId, cart);
+                saleDAO.addSale(sale);
+                return sale.getSaleId();
+            }, "cartItems", String.valueOf(cart.size()));
+        }
+
+        // --- Report query over the whole seeded table ---
+        String first = LocalDate.now().minusDays(days - 1).toString();
+        String last = LocalDate.now().toString();
+        runner.run("SaleDAO.getSalesByDateRange", () -> saleDAO.getSalesByDateRange(first, last).size(),
+                "rows", String.valueOf(salesRows), "days", String.valueOf(days));
+
+        // --- Exports (one week of sales) ---
+        String weekStart = LocalDate.now().minusDays(6).toString();
+        Path exportFile = Files.createTempFile("pos-bench-export", ".tmp");
+        try {
+            runner.run("PDFExporter.exportSalesToPDF", () ->
+                    PDFExporter.exportSalesToPDF(weekStart, last, exportFile.toString(), null), "days", "7");
+            runner.run("PDFExporter.exportSalesToCSV", () ->
+                    PDFExporter.exportSalesToCSV(weekStart, last, exportFile.toString(), null), "days", "7");
+        } finally {
+            Files.deleteIfExists(exportFile);
+        }
+
+        // --- Login password check (BCrypt cost as configured in PasswordUtil) ---
+        String hash = PasswordUtil.hashPassword("correct horse 42");
+        runner.run("PasswordUtil.verifyPassword", () -> PasswordUtil.verifyPassword("correct horse 42", hash));
+
+        runner.writeJson(out);
+        System.out.println("Results written to " + out.toAbsolutePath());
+        DatabaseConnection.shutdown();
+    }
+
+    static Sale newSale(int accountId, List<Product> cart) {
+        List<SaleItem> items = new ArrayList<>(cart.size());
+        long totalCents = 0;
+        for (Product p : cart) {
+            SaleItem item = new SaleItem();
+            item.setProductId(p.getProductId());
+            item.setQty(1);
+            item.setPriceCents(p.getPriceCents());
+            items.add(item);
+            totalCents += p.getPriceCents();
+        }
+
+        Sale sale = new Sale();
+        sale.setAccountId(accountId);
+        sale.setPaymentMethod("CASH");
+        sale.setRemarks("benchmark");
+        sale.setTotalCents(totalCents);
+        sale.setItems(items);
+        return sale;
+    }
+}
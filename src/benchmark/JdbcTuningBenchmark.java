@@ -0,0 +1,73 @@
+package benchmark;
+
+import dao.SaleDAO;
+import db.DatabaseConnection;
+import models.Product;
+import models.Sale;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares SaleDAO.addSale with DatabaseConnection's driver tuning profile off and on,
+ * for carts of 1 to 500 items. With batch rewriting on, the time per sale should grow
+ * only slowly with cart size (same number of round trips); with it off, every item costs
+ * two extra round trips.
+ *
+ * Usage: java benchmark.JdbcTuningBenchmark [results.json]
+ *
+ * Needs a scratch MySQL database (-Dpos.db.url=..., see BenchmarkDatabase; the profile only
+ * applies to jdbc:mysql URLs). The sales it records are voided, and its products deleted,
+ * when the run ends.
+ * Settings: pos.bench.accountId, pos.bench.allowWrites,
+ * pos.bench.warmup / pos.bench.iterations / pos.bench.iterationMillis
+ */
+public class JdbcTuningBenchmark {
+
+    private static final int[] CART_SIZES = {1, 10, 100, 500};
+
+    public static void main(String[] args) throws Exception {
+        Path out = Paths.get(args.length > 0 ? args[0] : "jdbc-tuning-results.json");
+        BenchmarkDatabase.requireScratchDatabase();
+
+        int accountId = BenchmarkDatabase.benchAccountId();
+        String skuPrefix = "BENCH-" + System.currentTimeMillis() + "-";
+        List<Integer> saleIds = new ArrayList<>();
+        try {
+            List<Product> products = BenchmarkDatabase.createProducts(skuPrefix, CART_SIZES[CART_SIZES.length - 1]);
+
+            BenchmarkRunner runner = new BenchmarkRunner(
+                    Integer.getInteger("pos.bench.warmup", 3),
+                    Integer.getInteger("pos.bench.iterations", 5),
+                    Long.getLong("pos.bench.iterationMillis", 2_000L));
+
+            SaleDAO saleDAO = new SaleDAO();
+            for (String tuning : new String[]{"off", "on"}) {
+                // The profile is applied when the pool opens its connections
+                System.setProperty("pos.db.tuning", tuning);
+                DatabaseConnection.shutdown();
+                System.out.println("# " + DatabaseConnection.jdbcUrl());
+
+                for (int cartItems : CART_SIZES) {
+                    List<Product> cart = products.subList(0, cartItems);
+                    runner.run("SaleDAO.addSale", () -> {
+                        Sale sale = HotPathBenchmarks.newSale(accountId, cart);
+                        saleDAO.addSale(sale);
+                        saleIds.add(sale.getSaleId());
+                        return sale.getSaleId();
+                    }, "tuning", tuning, "cartItems", String.valueOf(cartItems));
+                }
+            }
+
+            runner.writeJson(out);
+            System.out.println("Results written to " + out.toAbsolutePath());
+        } finally {
+            // Sales first: sale_items still reference the products
+            System.out.println("Voided " + BenchmarkDatabase.voidSales(saleIds) + " benchmark sales, removed "
+                    + BenchmarkDatabase.deleteProducts(skuPrefix) + " benchmark products");
+            DatabaseConnection.shutdown();
+        }
+    }
+}
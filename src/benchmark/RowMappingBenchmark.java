@@ -0,0 +1,121 @@
+package benchmark;
+
+import dao.ProductCache;
+import dao.ProductDAO;
+import db.DatabaseConnection;
+import models.Money;
+import models.Product;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product row mapping over a large catalog (default 100,000 active products):
+ *   byName        the previous mapping, rs.getXxx("column") for every field of every row
+ *   byIndex       ProductDAO.getAllProducts with the cache dropped (RowMapper, one Product per row)
+ *   flyweight     ProductDAO.forEachActiveProduct (RowMapper, one reused Product)
+ * Bytes allocated per call are printed after the timings.
+ *
+ * Usage: java benchmark.RowMappingBenchmark [results.json]
+ *
+ * Only runs against a scratch database (-Dpos.db.url=..., see BenchmarkDatabase). The
+ * seeded SEED-* products are deleted again when the run ends.
+ *
+ * Settings: pos.bench.products (default 100000), pos.bench.loadSchema / pos.bench.schema,
+ * pos.bench.allowWrites, pos.bench.warmup / pos.bench.iterations / pos.bench.iterationMillis
+ */
+public class RowMappingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Path out = Paths.get(args.length > 0 ? args[0] : "row-mapping-results.json");
+        BenchmarkDatabase.requireScratchDatabase();
+
+        if (Boolean.getBoolean("pos.bench.loadSchema")) {
+            BenchmarkDatabase.loadSchema(Paths.get(System.getProperty("pos.bench.schema", "pos_system.sql")));
+        }
+
+        String seedPrefix = "SEED-" + System.currentTimeMillis() + "-";
+        try {
+            System.out.println("Preparing data...");
+            long rows = BenchmarkDatabase.seedProducts(seedPrefix, Integer.getInteger("pos.bench.products", 100_000));
+            ProductCache.getInstance().invalidateAll();
+            String rowsParam = String.valueOf(rows);
+
+            BenchmarkRunner runner = new BenchmarkRunner(
+                    Integer.getInteger("pos.bench.warmup", 3),
+                    Integer.getInteger("pos.bench.iterations", 5),
+                    Long.getLong("pos.bench.iterationMillis", 2_000L));
+
+            ProductDAO productDAO = new ProductDAO();
+            BenchmarkRunner.Operation byName = () -> loadByName().size();
+            BenchmarkRunner.Operation byIndex = () -> {
+                ProductCache.getInstance().invalidateAll();
+                return productDAO.getAllProducts().size();
+            };
+            long[] checksum = new long[1];
+            BenchmarkRunner.Operation flyweight = () -> productDAO.forEachActiveProduct(p -> checksum[0] += p.getStockQty());
+
+            runner.run("ProductMapping.byName", byName, "rows", rowsParam);
+            runner.run("ProductDAO.getAllProducts.uncached", byIndex, "rows", rowsParam);
+            runner.run("ProductDAO.forEachActiveProduct", flyweight, "rows", rowsParam);
+
+            System.out.println("Allocated per call:");
+            System.out.printf("  %-40s %,15d bytes%n", "ProductMapping.byName", allocatedBytes(byName));
+            System.out.printf("  %-40s %,15d bytes%n", "ProductDAO.getAllProducts.uncached", allocatedBytes(byIndex));
+            System.out.printf("  %-40s %,15d bytes%n", "ProductDAO.forEachActiveProduct", allocatedBytes(flyweight));
+
+            runner.writeJson(out);
+            System.out.println("Results written to " + out.toAbsolutePath());
+        } finally {
+            int removed = BenchmarkDatabase.deleteProducts(seedPrefix);
+            ProductCache.getInstance().invalidateAll();
+            System.out.println("Removed " + removed + " seeded products");
+        }
+        DatabaseConnection.shutdown();
+    }
+
+    /**
+     * Baseline: the mapping ProductDAO used before RowMapper (column label lookups per row).
+     */
+    private static List<Product> loadByName() throws Exception {
+        List<Product> products = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM products WHERE is_active = TRUE");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Product p = new Product();
+                p.setProductId(rs.getInt("product_id"));
+                p.setSku(rs.getString("sku"));
+                p.setName(rs.getString("name"));
+                p.setCategory(rs.getString("category"));
+                p.setPriceCents(Money.read(rs, "price"));
+                p.setCostCents(Money.read(rs, "cost"));
+                p.setStockQty(rs.getInt("stock_qty"));
+                p.setReorderLevel(rs.getInt("reorder_level"));
+                p.setActive(rs.getBoolean("is_active"));
+                products.add(p);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Bytes allocated by this thread during one call (HotSpot only; -1 elsewhere).
+     */
+    private static long allocatedBytes(BenchmarkRunner.Operation op) throws Exception {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        op.run();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+}
@@ -0,0 +1,129 @@
+package benchmark;
+
+import dao.AccountDAO;
+import dao.GroupCommitSaleWriter;
+import dao.ProductDAO;
+import dao.SaleDAO;
+import db.DatabaseConnection;
+import models.Product;
+import models.Sale;
+import models.SaleItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures SaleDAO.addSale throughput (sales/second) with group commit off and on.
+ *
+ * Usage: java benchmark.SaleThroughputBenchmark threads seconds accountId
+ *
+ * The sales are recorded under accountId, which must exist (use a dedicated account).
+ * Only runs against a scratch database (-Dpos.db.url=..., or -Dpos.bench.allowWrites=true;
+ * see BenchmarkDatabase) and creates a dedicated high-stock product so inventory is not
+ * touched. The first failure of each run is printed.
+ */
+public class SaleThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: java benchmark.SaleThroughputBenchmark threads seconds accountId");
+            System.exit(2);
+        }
+        int threads = Integer.parseInt(args[0]);
+        int seconds = Integer.parseInt(args[1]);
+        int accountId = Integer.parseInt(args[2]);
+
+        BenchmarkDatabase.requireScratchDatabase();
+        if (new AccountDAO().getAccountById(accountId) == null) {
+            throw new IllegalArgumentException("Account " + accountId + " does not exist");
+        }
+
+        Product product = createBenchProduct();
+
+        System.out.println("mode,threads,seconds,sales,errors,sales_per_sec");
+        for (boolean groupCommit : new boolean[]{false, true}) {
+            GroupCommitSaleWriter.setEnabled(groupCommit);
+            run(groupCommit ? "group_commit" : "per_sale_commit", threads, 2, accountId, product, false);
+            run(groupCommit ? "group_commit" : "per_sale_commit", threads, seconds, accountId, product, true);
+        }
+        GroupCommitSaleWriter.setEnabled(false);
+
+        System.out.println("# pool: " + DatabaseConnection.getPoolStats());
+        DatabaseConnection.shutdown();
+    }
+
+    private static void run(String mode, int threads, int seconds, int accountId, Product product,
+                            boolean report) throws InterruptedException {
+        AtomicLong sales = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicReference<Exception> firstError = new AtomicReference<>();
+        long endAt = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                SaleDAO dao = new SaleDAO();
+                try {
+                    while (System.nanoTime() < endAt) {
+                        try {
+                            dao.addSale(newSale(accountId, product));
+                            sales.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            firstError.compareAndSet(null, e);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-terminal-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        done.await();
+
+        if (report) {
+            System.out.printf("%s,%d,%d,%d,%d,%.1f%n", mode, threads, seconds, sales.get(), errors.get(),
+                    sales.get() / (double) seconds);
+        }
+        if (firstError.get() != null) {
+            System.err.println("# " + mode + (report ? "" : " (warm-up)") + ": " + errors.get()
+                    + " failed sales, first failure:");
+            firstError.get().printStackTrace();
+        }
+    }
+
+    static Sale newSale(int accountId, Product product) {
+        SaleItem item = new SaleItem();
+        item.setProductId(product.getProductId());
+        item.setQty(1);
+        item.setPriceCents(product.getPriceCents());
+
+        List<SaleItem> items = new ArrayList<>();
+        items.add(item);
+
+        Sale sale = new Sale();
+        sale.setAccountId(accountId);
+        sale.setPaymentMethod("CASH");
+        sale.setRemarks("benchmark");
+        sale.setTotalCents(product.getPriceCents());
+        sale.setItems(items);
+        return sale;
+    }
+
+    static Product createBenchProduct() throws Exception {
+        Product p = new Product();
+        p.setSku("BENCH-" + System.currentTimeMillis());
+        p.setName("Benchmark Item");
+        p.setCategory("Benchmark");
+        p.setPriceCents(100);
+        p.setCostCents(50);
+        p.setStockQty(1_000_000_000);
+        new ProductDAO().addProduct(p);
+        return p;
+    }
+}
@@ -7,6 +7,7 @@ import db.PasswordUtil; // Must be updated to use BCrypt or similar
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class AccountDAO {
 
@@ -52,7 +53,7 @@ public class AccountDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return mapResultSetToAccount(rs);
+                return new AccountRowMapper(rs).map();
             }
         }
         return null;
@@ -64,9 +65,13 @@ public class AccountDAO {
 
     /**
      * Authenticates a user by username and password, using secure password verification.
+     * A stored hash whose BCrypt cost differs from the current target is re-hashed after
+     * a successful login. Slow (one or two BCrypt rounds): UI code should use loginAsync.
      */
     public Account login(String username, String password) throws Exception {
-        String sql = "SELECT * FROM accounts WHERE username=?";
+        String sql = "SELECT account_id, username, password, role, first_name, last_name FROM accounts WHERE username=?";
+        Account acc = null;
+        String storedHash = null;
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -74,15 +79,44 @@ public class AccountDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                String storedHash = rs.getString("password");
+                storedHash = rs.getString("password");
 
                 // SECURITY FIX: Use verifyPassword for BCrypt/PBKDF2, which handles salting and stretching automatically.
                 if (PasswordUtil.verifyPassword(password, storedHash)) {
-                    return mapResultSetToAccount(rs);
+                    acc = new AccountRowMapper(rs).map();
                 }
             }
         }
-        return null;
+
+        if (acc != null && PasswordUtil.needsRehash(storedHash)) {
+            rehashPassword(acc.getAccountId(), storedHash, password);
+        }
+        return acc;
+    }
+
+    /**
+     * {@link #login} on PasswordUtil's bounded verification pool; keeps BCrypt off the EDT.
+     * The future fails with RejectedExecutionException when too many logins are queued.
+     */
+    public CompletableFuture<Account> loginAsync(String username, String password) {
+        return PasswordUtil.submit(() -> login(username, password));
+    }
+
+    /**
+     * Replace a verified hash with one at the current cost. Only if the hash is unchanged
+     * (the password was not changed meanwhile); a failure here does not fail the login.
+     */
+    private void rehashPassword(int accountId, String oldHash, String password) {
+        String sql = "UPDATE accounts SET password=? WHERE account_id=? AND password=?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, PasswordUtil.hashPassword(password));
+            stmt.setInt(2, accountId);
+            stmt.setString(3, oldHash);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
     // ----------------------------------------------------------------------------------
@@ -103,9 +137,7 @@ public class AccountDAO {
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                accounts.add(mapResultSetToAccount(rs));
-            }
+            accounts.addAll(new AccountRowMapper(rs).mapAll());
         }
         return accounts;
     }
@@ -146,6 +178,8 @@ public class AccountDAO {
             stmt.setInt(paramIndex, acc.getAccountId());
             stmt.executeUpdate();
         }
+        SessionManager.getInstance().revoke(acc.getAccountId()); // Role or password may have changed
+        PermissionCache.getInstance().invalidate(acc.getAccountId());
     }
 
     // ----------------------------------------------------------------------------------
@@ -163,6 +197,8 @@ public class AccountDAO {
             stmt.setInt(1, accountId);
             stmt.executeUpdate();
         }
+        SessionManager.getInstance().revoke(accountId);
+        PermissionCache.getInstance().invalidate(accountId);
     }
 
     // ----------------------------------------------------------------------------------
@@ -170,16 +206,33 @@ public class AccountDAO {
     // ----------------------------------------------------------------------------------
 
     /**
-     * Maps a ResultSet row to an Account object, reducing redundancy.
+     * Maps an accounts row to an Account object by column index, reducing redundancy.
+     * Note: Password is NOT mapped for security reasons
      */
-    private Account mapResultSetToAccount(ResultSet rs) throws SQLException {
-        Account acc = new Account();
-        acc.setAccountId(rs.getInt("account_id"));
-        acc.setUsername(rs.getString("username"));
-        acc.setRole(rs.getString("role"));
-        acc.setFirstName(rs.getString("first_name"));
-        acc.setLastName(rs.getString("last_name"));
-        // Note: Password is NOT mapped for security reasons
-        return acc;
+    private static final class AccountRowMapper extends RowMapper<Account> {
+        private final int accountId, username, role, firstName, lastName;
+
+        AccountRowMapper(ResultSet rs) throws SQLException {
+            super(rs);
+            accountId = column("account_id");
+            username = column("username");
+            role = column("role");
+            firstName = column("first_name");
+            lastName = column("last_name");
+        }
+
+        @Override
+        protected Account newRow() {
+            return new Account();
+        }
+
+        @Override
+        protected void fill(Account acc) throws SQLException {
+            acc.setAccountId(rs.getInt(accountId));
+            acc.setUsername(rs.getString(username));
+            acc.setRole(rs.getString(role));
+            acc.setFirstName(rs.getString(firstName));
+            acc.setLastName(rs.getString(lastName));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown by SaleDAO.insertSale when a sale with the same client_ref is already stored:
+ * the sale was submitted before (a retry after a timeout, or an offline replay). Nothing
+ * was written; {@link #getExistingSaleId()} is the ID of the original sale.
+ */
+class DuplicateSaleException extends SQLException {
+
+    private final int existingSaleId;
+
+    DuplicateSaleException(String clientRef, int existingSaleId) {
+        super("Sale " + clientRef + " already stored as sale_id " + existingSaleId);
+        this.existingSaleId = existingSaleId;
+    }
+
+    int getExistingSaleId() {
+        return existingSaleId;
+    }
+}
@@ -0,0 +1,263 @@
+package dao;
+
+import db.DatabaseConnection;
+import models.Sale;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional group-commit mode for SaleDAO.addSale.
+ *
+ * Sales submitted by many terminals/threads are queued and written by a single writer
+ * thread. The writer collects sales for up to {@code windowMillis} (or until
+ * {@code maxBatch} sales are waiting), writes them in one transaction and commits once,
+ * so the database flushes its log once per group instead of once per sale.
+ *
+ * Each sale is written behind its own savepoint: if one sale fails, only that sale is
+ * rolled back and its caller gets the error; the rest of the group still commits.
+ * A resubmitted sale (same client_ref) gets the original sale ID once the group commits.
+ *
+ * A caller waits at most pos.sales.groupCommit.timeoutMillis (default 30s). If the writer
+ * thread stops, everything still queued is failed rather than left waiting, and the next
+ * submit starts a new writer.
+ *
+ * Enable with -Dpos.sales.groupCommit=true or {@link #setEnabled(boolean)}.
+ */
+public class GroupCommitSaleWriter {
+
+    private static volatile boolean enabled = Boolean.getBoolean("pos.sales.groupCommit");
+    private static volatile GroupCommitSaleWriter instance;
+
+    private final long windowMillis = Long.getLong("pos.sales.groupCommit.windowMillis", 5L);
+    private final int maxBatch = Integer.getInteger("pos.sales.groupCommit.maxBatch", 32);
+    private final long timeoutMillis = Long.getLong("pos.sales.groupCommit.timeoutMillis", 30_000L);
+
+    private final LinkedBlockingQueue<PendingSale> queue = new LinkedBlockingQueue<>();
+    private final SaleDAO saleDAO = new SaleDAO();
+    private volatile boolean stopped;
+
+    private GroupCommitSaleWriter() {
+        Thread writer = new Thread(this::runWriter, "sale-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static GroupCommitSaleWriter getInstance() {
+        GroupCommitSaleWriter w = instance;
+        if (w == null) {
+            synchronized (GroupCommitSaleWriter.class) {
+                w = instance;
+                if (w == null) {
+                    w = new GroupCommitSaleWriter();
+                    instance = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Queues the sale and blocks until its group has committed (or it failed).
+     * Sets the generated sale ID on success, like SaleDAO.addSale.
+     * @throws SQLTimeoutException if the outcome is not known in time; the sale may still
+     *         commit, and submitting it again is safe (same client_ref)
+     */
+    public void submit(Sale sale) throws Exception {
+        PendingSale pending = new PendingSale(sale);
+        queue.put(pending);
+        if (stopped) {
+            failQueued(); // The writer exited after we looked it up; nobody will take this
+        }
+        try {
+            int saleId = pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            sale.setSaleId(saleId);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            if (queue.remove(pending)) {
+                throw new SQLTimeoutException("Sale was not written within " + timeoutMillis + " ms", e);
+            }
+            throw new SQLTimeoutException("Sale commit did not finish within " + timeoutMillis
+                    + " ms; it may still be saved, resubmit it to find out", e);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // WRITER THREAD
+    // ----------------------------------------------------------------------------------
+
+    private void runWriter() {
+        List<PendingSale> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSale next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeGroup(batch);
+            } catch (InterruptedException e) {
+                stop(batch, e);
+                return;
+            } catch (RuntimeException e) {
+                for (PendingSale p : batch) {
+                    p.result.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writer exit: fail the sales in hand and everything still queued, and let the next
+     * submit start a new writer.
+     */
+    private void stop(List<PendingSale> batch, InterruptedException cause) {
+        stopped = true;
+        synchronized (GroupCommitSaleWriter.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+        failAll(batch, new SQLException("Group-commit writer stopped; sale was not written", cause));
+        failQueued();
+    }
+
+    private void failQueued() {
+        SQLException e = new SQLException("Group-commit writer stopped; sale was not written");
+        PendingSale p;
+        while ((p = queue.poll()) != null) {
+            p.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Writes and commits a group. If the transaction is aborted as a whole (e.g. a deadlock
+     * victim), the offending sale is failed and the others are written again in a fresh
+     * transaction; nothing had been committed yet, so this cannot duplicate sales.
+     */
+    private void writeGroup(List<PendingSale> group) {
+        List<PendingSale> remaining = new ArrayList<>(group);
+        while (!remaining.isEmpty()) {
+            boolean aborted = tryWriteGroup(remaining);
+            if (!aborted) {
+                return;
+            }
+            // Drop the sale that aborted the transaction and any that already failed
+            remaining.removeIf(p -> p.result.isDone());
+        }
+    }
+
+    /**
+     * @return true when the whole transaction was aborted by one sale and the rest of the
+     * group has to be written again; false when every sale in the group has its outcome
+     */
+    private boolean tryWriteGroup(List<PendingSale> group) {
+        List<PendingSale> written = new ArrayList<>(group.size());
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (PendingSale p : group) {
+                    Savepoint sp = conn.setSavepoint();
+                    try {
+                        p.saleId = saleDAO.insertSale(conn, p.sale);
+                        conn.releaseSavepoint(sp);
+                        written.add(p);
+                    } catch (DuplicateSaleException e) {
+                        // Nothing written; report the original ID after the commit
+                        conn.releaseSavepoint(sp);
+                        p.saleId = e.getExistingSaleId();
+                        p.duplicate = true;
+                        written.add(p);
+                    } catch (SQLException | RuntimeException e) {
+                        // Only this sale is rolled back; the rest of the group carries on
+                        try {
+                            conn.rollback(sp);
+                        } catch (SQLException txAborted) {
+                            // The server already rolled back the whole transaction
+                            conn.rollback();
+                            p.result.completeExceptionally(e);
+                            return true;
+                        }
+                        p.result.completeExceptionally(e);
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                // Commit (or the connection) failed: outcome unknown, report to every caller
+                // still waiting (sales that already failed keep their own error)
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                    // Connection is gone
+                }
+                failAll(group, e);
+                return false;
+            }
+        } catch (SQLException e) {
+            // Could not get a connection at all
+            failAll(group, e);
+            return false;
+        }
+
+        for (PendingSale p : written) {
+            p.sale.setSaleId(p.saleId);
+            if (!p.duplicate) {
+                try {
+                    saleDAO.applyCommittedStock(p.sale);
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // The sale is committed; the cache reloads on expiry
+                }
+            }
+            p.result.complete(p.saleId);
+        }
+        return false;
+    }
+
+    private static void failAll(List<PendingSale> pending, Exception e) {
+        for (PendingSale p : pending) {
+            p.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingSale {
+        final Sale sale;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+        int saleId;
+        boolean duplicate;
+
+        PendingSale(Sale sale) {
+            this.sale = sale;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by SaleDAO.addSale when one or more products do not have enough stock left.
+ * The sale is rolled back; {@link #getShortProductIds()} lists the products that were short.
+ */
+public class InsufficientStockException extends SQLException {
+
+    private final List<Integer> shortProductIds;
+
+    public InsufficientStockException(List<Integer> shortProductIds) {
+        super("Insufficient stock for product(s) " + shortProductIds);
+        this.shortProductIds = Collections.unmodifiableList(shortProductIds);
+    }
+
+    public List<Integer> getShortProductIds() {
+        return shortProductIds;
+    }
+}
@@ -0,0 +1,264 @@
+package dao;
+
+import db.DatabaseConnection;
+import models.Product;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process reorder alerts: which active products are at or below their reorder level,
+ * most urgent first (fewest days of cover = stock / average daily sales).
+ *
+ * {@link #load} reads the catalog and the last pos.lowstock.rateDays days (default 14) of
+ * sales once. After that the tracker is fed by ProductCache's write-through calls, so every
+ * stock change made through SaleDAO, ProductDAO or StockAdjustmentDAO updates it in
+ * O(log n) without querying the database, and each catalog reload re-syncs it.
+ * Listeners are told whenever the alert list changes.
+ *
+ * Daily sales rates are fixed at load; stock levels are live.
+ */
+public class LowStockTracker {
+
+    /**
+     * A product at or below its reorder level.
+     */
+    public static final class Alert {
+        private final int productId;
+        private final String name;
+        private final int stockQty;
+        private final int reorderLevel;
+        private final double dailyRate;
+        private final double daysOfCover;
+
+        Alert(Tracked t) {
+            this.productId = t.productId;
+            this.name = t.name;
+            this.stockQty = t.stockQty;
+            this.reorderLevel = t.reorderLevel;
+            this.dailyRate = t.dailyRate;
+            this.daysOfCover = t.daysOfCover;
+        }
+
+        public int getProductId() { return productId; }
+        public String getName() { return name; }
+        public int getStockQty() { return stockQty; }
+        public int getReorderLevel() { return reorderLevel; }
+        /** Average units sold per day. */
+        public double getDailyRate() { return dailyRate; }
+        /** Days until stock runs out at the current rate; infinite when nothing sells. */
+        public double getDaysOfCover() { return daysOfCover; }
+    }
+
+    /**
+     * Called (on the thread that changed the stock) with the new alert list, most urgent
+     * first. UI listeners must hand off to the EDT themselves.
+     */
+    public interface Listener {
+        void lowStockChanged(List<Alert> alerts);
+    }
+
+    private static final LowStockTracker INSTANCE = new LowStockTracker();
+
+    private final int rateDays = Integer.getInteger("pos.lowstock.rateDays", 14);
+
+    private final Map<Integer, Tracked> byId = new HashMap<>();
+    // Only products at or below their reorder level; a Tracked is always removed before
+    // the fields the comparator reads are changed
+    private final TreeSet<Tracked> low = new TreeSet<>(
+            Comparator.comparingDouble((Tracked t) -> t.daysOfCover).thenComparingInt(t -> t.productId));
+    private final Map<Integer, Double> ratesById = new HashMap<>();
+    private boolean loaded;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private LowStockTracker() {
+    }
+
+    public static LowStockTracker getInstance() {
+        return INSTANCE;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * (Re)load the catalog and the daily sales rates. Call off the EDT.
+     */
+    public void load(ProductDAO dao) throws Exception {
+        Map<Integer, Double> rates = new HashMap<>();
+        String sql = "SELECT i.product_id, SUM(i.qty) FROM sale_items i JOIN sales s ON s.sale_id = i.sale_id " +
+                "WHERE s.sale_datetime >= ? GROUP BY i.product_id";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusDays(rateDays)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rates.put(rs.getInt(1), rs.getLong(2) / (double) rateDays);
+                }
+            }
+        }
+
+        List<Product> products = dao.getAllProducts();
+        synchronized (this) {
+            ratesById.clear();
+            ratesById.putAll(rates);
+            loaded = true;
+        }
+        sync(products);
+    }
+
+    /**
+     * Current alerts, most urgent first.
+     */
+    public synchronized List<Alert> getLowStock() {
+        List<Alert> alerts = new ArrayList<>(low.size());
+        for (Tracked t : low) {
+            alerts.add(new Alert(t));
+        }
+        return alerts;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // UPDATES (from ProductCache)
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Replace everything with a freshly loaded catalog.
+     */
+    void sync(List<Product> products) {
+        boolean changed;
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            changed = !low.isEmpty();
+            Set<Integer> seen = new HashSet<>();
+            for (Product p : products) {
+                seen.add(p.getProductId());
+                changed |= apply(p);
+            }
+            changed |= byId.keySet().retainAll(seen) && low.removeIf(t -> !seen.contains(t.productId));
+        }
+        if (changed) {
+            fire();
+        }
+    }
+
+    void update(Product product) {
+        boolean changed;
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            changed = apply(product);
+        }
+        if (changed) {
+            fire();
+        }
+    }
+
+    void remove(int productId) {
+        boolean changed;
+        synchronized (this) {
+            Tracked t = byId.remove(productId);
+            changed = t != null && low.remove(t);
+        }
+        if (changed) {
+            fire();
+        }
+    }
+
+    void setStock(int productId, int stockQty) {
+        changeStock(productId, stockQty, false);
+    }
+
+    void applyStockDelta(int productId, int delta) {
+        changeStock(productId, delta, true);
+    }
+
+    private void changeStock(int productId, int value, boolean delta) {
+        boolean changed;
+        synchronized (this) {
+            Tracked t = byId.get(productId);
+            if (t == null) {
+                return;
+            }
+            boolean wasLow = low.remove(t);
+            t.stockQty = delta ? t.stockQty + value : value;
+            t.recompute();
+            boolean isLow = t.isLow() && low.add(t);
+            changed = wasLow || isLow;
+        }
+        if (changed) {
+            fire();
+        }
+    }
+
+    /**
+     * @return whether the alert list changed
+     */
+    private boolean apply(Product p) {
+        if (!p.isActive()) {
+            Tracked t = byId.remove(p.getProductId());
+            return t != null && low.remove(t);
+        }
+        Tracked t = byId.computeIfAbsent(p.getProductId(), Tracked::new);
+        boolean wasLow = low.remove(t);
+        t.name = p.getName();
+        t.stockQty = p.getStockQty();
+        t.reorderLevel = p.getReorderLevel();
+        t.dailyRate = ratesById.getOrDefault(p.getProductId(), 0.0);
+        t.recompute();
+        boolean isLow = t.isLow() && low.add(t);
+        return wasLow || isLow;
+    }
+
+    private void fire() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        List<Alert> alerts = getLowStock();
+        for (Listener l : listeners) {
+            l.lowStockChanged(alerts);
+        }
+    }
+
+    private static final class Tracked {
+        final int productId;
+        String name;
+        int stockQty;
+        int reorderLevel;
+        double dailyRate;
+        double daysOfCover;
+
+        Tracked(int productId) {
+            this.productId = productId;
+        }
+
+        boolean isLow() {
+            return stockQty <= reorderLevel;
+        }
+
+        void recompute() {
+            daysOfCover = dailyRate > 0 ? Math.max(0, stockQty) / dailyRate : Double.POSITIVE_INFINITY;
+        }
+    }
+}
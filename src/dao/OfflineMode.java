@@ -0,0 +1,339 @@
+package dao;
+
+import db.DatabaseConnection;
+import db.PoolTimeoutException;
+import models.Money;
+import models.Sale;
+import models.SaleItem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Offline checkout: keeps the till selling while MySQL is unreachable.
+ *
+ * When SaleDAO.addSale fails to reach the database, the POS goes offline. Sales are then
+ * appended to a local {@link OfflineSaleJournal} (flushed to disk before addSale returns)
+ * and the cached stock in ProductCache is decremented as usual. A background thread
+ * retries the database and replays the journal in batches, one transaction per batch.
+ * Every sale carries a client_ref (UUID) with a unique index, so a batch that committed
+ * just before a crash is skipped on the next replay rather than inserted twice.
+ * The POS goes back online once the journal is drained.
+ *
+ * If a batch fails for any reason other than the connection, its sales are replayed one
+ * per transaction. A sale the database still rejects is written to the dead-letter file
+ * (plain text, for re-entry by hand), skipped in the journal and reported to the
+ * {@link DeadLetterListener}s, so one bad record cannot keep the till offline.
+ *
+ * Settings (system properties):
+ *   pos.offline.enabled       turn offline mode on (default false)
+ *   pos.offline.journal       journal file (default ~/.pos/sale-journal.dat)
+ *   pos.offline.deadLetter    rejected sales (default ~/.pos/sale-dead-letter.txt)
+ *   pos.offline.journalMB     journal size (default 64)
+ *   pos.offline.retryMillis   pause between replay attempts (default 5000)
+ *   pos.offline.replayBatch   sales per replay transaction (default 100)
+ */
+public class OfflineMode {
+
+    /**
+     * Told (on the replay thread) about a journaled sale the database rejected. UI listeners
+     * must hand off to the EDT themselves.
+     */
+    public interface DeadLetterListener {
+        void saleRejected(Sale sale, Exception error, Path deadLetterFile);
+    }
+
+    private static final boolean enabled = Boolean.getBoolean("pos.offline.enabled");
+    private static final List<DeadLetterListener> deadLetterListeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean offline;
+    private static volatile OfflineMode instance;
+
+    private final long retryMillis = Long.getLong("pos.offline.retryMillis", 5_000L);
+    private final int replayBatch = Integer.getInteger("pos.offline.replayBatch", 100);
+
+    private final OfflineSaleJournal journal;
+    private final Path deadLetterFile;
+    private final SaleDAO saleDAO = new SaleDAO();
+    private Thread replayer;
+
+    private OfflineMode() throws IOException {
+        Path file = Paths.get(System.getProperty("pos.offline.journal",
+                Paths.get(System.getProperty("user.home"), ".pos", "sale-journal.dat").toString()));
+        int capacity = Integer.getInteger("pos.offline.journalMB", 64) * 1024 * 1024;
+        journal = new OfflineSaleJournal(file, capacity);
+        deadLetterFile = Paths.get(System.getProperty("pos.offline.deadLetter",
+                Paths.get(System.getProperty("user.home"), ".pos", "sale-dead-letter.txt").toString()));
+    }
+
+    public static void addDeadLetterListener(DeadLetterListener listener) {
+        deadLetterListeners.add(listener);
+    }
+
+    public static void removeDeadLetterListener(DeadLetterListener listener) {
+        deadLetterListeners.remove(listener);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * True while sales are going to the local journal instead of the database.
+     */
+    public static boolean isOffline() {
+        return offline;
+    }
+
+    public static OfflineMode getInstance() throws IOException {
+        OfflineMode m = instance;
+        if (m == null) {
+            synchronized (OfflineMode.class) {
+                m = instance;
+                if (m == null) {
+                    m = new OfflineMode();
+                    instance = m;
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Call once at startup: if the last session ended with sales still in the journal,
+     * start offline and replay them.
+     */
+    public static void resumePendingReplay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            OfflineMode m = getInstance();
+            if (m.journal.hasPending()) {
+                m.goOffline(null);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Whether an exception (or any of its causes) means the database could not be reached,
+     * as opposed to the sale itself being rejected: a driver connect/communication failure
+     * (SQLSTATE class 08). A pool wait timeout ({@link PoolTimeoutException}) only means the
+     * database is busy, so it never counts.
+     */
+    public static boolean isConnectionFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PoolTimeoutException) {
+                return false;
+            }
+            if (t instanceof SQLException) {
+                String state = ((SQLException) t).getSQLState();
+                if (state != null && state.startsWith("08")) { // SQLSTATE class 08: connection exception
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Switch to offline checkout and start the replay thread if it is not running.
+     */
+    synchronized void goOffline(Exception cause) {
+        if (cause != null && !offline) {
+            System.err.println("Database unreachable, switching to offline checkout: " + cause);
+        }
+        offline = true;
+        if (replayer == null) {
+            replayer = new Thread(this::runReplay, "offline-sale-replay");
+            replayer.setDaemon(true);
+            replayer.start();
+        }
+    }
+
+    /**
+     * Record a sale locally. The sale ID stays 0 until it is replayed.
+     * @throws IOException if the journal cannot be written (the sale is not recorded)
+     */
+    synchronized void journal(Sale sale) throws IOException {
+        if (sale.getSaleDatetime() == null) {
+            sale.setSaleDatetime(new Timestamp(System.currentTimeMillis()));
+        }
+        journal.append(sale);
+        goOffline(null); // Make sure someone replays it
+
+        ProductCache cache = ProductCache.getInstance();
+        for (SaleItem item : sale.getItems()) {
+            cache.applyStockDelta(item.getProductId(), -item.getQty());
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // REPLAY THREAD
+    // ----------------------------------------------------------------------------------
+
+    private void runReplay() {
+        while (true) {
+            try {
+                Thread.sleep(retryMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                while (replayNextBatch()) {
+                    // Keep going while the database is up
+                }
+            } catch (Exception e) {
+                if (!isConnectionFailure(e)) {
+                    e.printStackTrace(); // Still down or a bad record; retry later
+                }
+                continue;
+            }
+
+            synchronized (this) {
+                if (!journal.hasPending()) {
+                    offline = false;
+                    replayer = null;
+                    System.err.println("Offline sales replayed, back to online checkout");
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replay up to replayBatch journaled sales in one transaction. If that fails for a reason
+     * other than the connection, fall back to one sale per transaction and dead-letter the
+     * ones that are still rejected.
+     * Stock is not re-applied to ProductCache: journal() already did that.
+     * @return false if the journal was empty
+     */
+    private boolean replayNextBatch() throws Exception {
+        List<OfflineSaleJournal.Entry> entries = journal.readPending(replayBatch);
+        if (entries.isEmpty()) {
+            return false;
+        }
+
+        try {
+            replay(entries);
+            journal.markReplayed(entries.get(entries.size() - 1).endOffset);
+        } catch (Exception e) {
+            if (isConnectionFailure(e)) {
+                throw e;
+            }
+            replayOneByOne(entries);
+        }
+        return true;
+    }
+
+    private void replayOneByOne(List<OfflineSaleJournal.Entry> entries) throws Exception {
+        for (OfflineSaleJournal.Entry entry : entries) {
+            try {
+                replay(List.of(entry));
+            } catch (Exception e) {
+                if (isConnectionFailure(e)) {
+                    throw e; // Sales before this one stay replayed
+                }
+                deadLetter(entry.sale, e); // Not skipped unless it is safely on disk
+            }
+            journal.markReplayed(entry.endOffset);
+        }
+    }
+
+    /**
+     * Write the sales in one transaction; a sale that is already in the database is skipped.
+     */
+    private void replay(List<OfflineSaleJournal.Entry> entries) throws Exception {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            for (OfflineSaleJournal.Entry entry : entries) {
+                try {
+                    saleDAO.insertSale(conn, entry.sale, false);
+                } catch (DuplicateSaleException e) {
+                    // Already replayed before a crash; nothing was written
+                }
+            }
+
+            conn.commit();
+
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    // Connection is gone; nothing was committed
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ex) {
+                    // Connection is gone
+                }
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // DEAD LETTERS
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Append a rejected sale to the dead-letter file (synced before returning) and tell
+     * the listeners.
+     */
+    private void deadLetter(Sale sale, Exception error) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(LocalDateTime.now()).append(" rejected: ").append(error).append('\n');
+        sb.append("sale client_ref=").append(sale.getClientRef())
+                .append(" account_id=").append(sale.getAccountId())
+                .append(" datetime=").append(sale.getSaleDatetime())
+                .append(" total=").append(Money.format(sale.getTotalCents()))
+                .append(" payment=").append(sale.getPaymentMethod())
+                .append(" remarks=").append(sale.getRemarks()).append('\n');
+        for (SaleItem item : sale.getItems()) {
+            sb.append("item product_id=").append(item.getProductId())
+                    .append(" qty=").append(item.getQty())
+                    .append(" price=").append(Money.format(item.getPriceCents())).append('\n');
+        }
+        sb.append('\n');
+
+        Path dir = deadLetterFile.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        try (Writer w = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.SYNC)) {
+            w.write(sb.toString());
+        }
+
+        System.err.println("Offline sale " + sale.getClientRef() + " rejected by the database, moved to "
+                + deadLetterFile.toAbsolutePath() + ": " + error);
+        for (DeadLetterListener l : deadLetterListeners) {
+            try {
+                l.saleRejected(sale, error, deadLetterFile.toAbsolutePath());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package dao;
+
+import models.Sale;
+import models.SaleItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal of sales taken while the database is unreachable.
+ *
+ * The file is memory-mapped with a fixed size. Layout:
+ * <pre>
+ *   header : int magic, int version, long replayedOffset
+ *   record : int length, int crc32(payload), payload ... ; a length of 0 ends the journal
+ * </pre>
+ * A record is written payload first and its length last, then flushed to disk, so a
+ * crash mid-append leaves at most a torn tail that fails the length/CRC check and is
+ * ignored on the next open. Records before {@code replayedOffset} are already in the
+ * database; once everything is replayed the space is reused from the start.
+ */
+class OfflineSaleJournal {
+
+    private static final int MAGIC = 0x504F534A; // "POSJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int REPLAYED_OFFSET_POS = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /**
+     * A journaled sale and the offset just past its record.
+     */
+    static final class Entry {
+        final Sale sale;
+        final int endOffset;
+
+        Entry(Sale sale, int endOffset) {
+            this.sale = sale;
+            this.endOffset = endOffset;
+        }
+    }
+
+    private final MappedByteBuffer buf;
+    private final int capacity;
+    private int replayedOffset;
+    private int writeOffset;
+
+    OfflineSaleJournal(Path file, int capacity) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Keep an existing journal's size so pending records are never cut off
+            this.capacity = (int) Math.max(capacity, ch.size());
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        }
+
+        if (buf.getInt(0) != MAGIC) {
+            buf.putInt(0, MAGIC);
+            buf.putInt(4, VERSION);
+            buf.putInt(HEADER_BYTES, 0);
+            setReplayedOffset(HEADER_BYTES);
+        } else if (buf.getInt(4) != VERSION) {
+            throw new IOException("Unsupported offline journal version " + buf.getInt(4) + " in " + file);
+        }
+
+        replayedOffset = (int) buf.getLong(REPLAYED_OFFSET_POS);
+        writeOffset = replayedOffset;
+        // Find the end: the first record that is missing, torn or corrupt
+        while (true) {
+            int length = readValidLength(writeOffset);
+            if (length <= 0) {
+                break;
+            }
+            writeOffset += RECORD_HEADER_BYTES + length;
+        }
+    }
+
+    synchronized boolean hasPending() {
+        return writeOffset > replayedOffset;
+    }
+
+    /**
+     * Append a sale and flush it to disk before returning.
+     * @throws IOException if the journal is full of sales not replayed yet
+     */
+    synchronized void append(Sale sale) throws IOException {
+        byte[] payload = encode(sale);
+        int needed = RECORD_HEADER_BYTES + payload.length + 4; // + end marker
+
+        if (writeOffset + needed > capacity) {
+            if (hasPending()) {
+                throw new IOException("Offline journal is full (" + capacity / 1024 + " KB); "
+                        + "sales cannot be recorded until the database is back");
+            }
+            // Everything replayed: start over at the beginning
+            writeOffset = HEADER_BYTES;
+            buf.putInt(writeOffset, 0);
+            setReplayedOffset(HEADER_BYTES);
+            if (writeOffset + needed > capacity) {
+                throw new IOException("Sale too large for the offline journal");
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        int start = writeOffset;
+        buf.putInt(start + 4, (int) crc.getValue());
+        buf.put(start + RECORD_HEADER_BYTES, payload);
+        int end = start + RECORD_HEADER_BYTES + payload.length;
+        buf.putInt(end, 0); // End marker (space may hold records from before a reset)
+        buf.putInt(start, payload.length); // Commits the record
+        buf.force(start, end + 4 - start);
+
+        writeOffset = end;
+    }
+
+    /**
+     * Up to {@code max} pending sales in journal order.
+     */
+    synchronized List<Entry> readPending(int max) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        int offset = replayedOffset;
+        while (offset < writeOffset && entries.size() < max) {
+            int length = buf.getInt(offset);
+            byte[] payload = new byte[length];
+            buf.get(offset + RECORD_HEADER_BYTES, payload);
+            offset += RECORD_HEADER_BYTES + length;
+            entries.add(new Entry(decode(payload), offset));
+        }
+        return entries;
+    }
+
+    /**
+     * Everything up to {@code offset} (an Entry's endOffset) is now in the database.
+     */
+    synchronized void markReplayed(int offset) {
+        setReplayedOffset(offset);
+    }
+
+    private void setReplayedOffset(int offset) {
+        replayedOffset = offset;
+        buf.putLong(REPLAYED_OFFSET_POS, offset);
+        buf.force(0, HEADER_BYTES);
+    }
+
+    /**
+     * @return the record's payload length, or 0 if there is no valid record at offset
+     */
+    private int readValidLength(int offset) {
+        if (offset + RECORD_HEADER_BYTES > capacity) {
+            return 0;
+        }
+        int length = buf.getInt(offset);
+        if (length <= 0 || offset + RECORD_HEADER_BYTES + length > capacity) {
+            return 0;
+        }
+        byte[] payload = new byte[length];
+        buf.get(offset + RECORD_HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buf.getInt(offset + 4) ? length : 0;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // SALE ENCODING
+    // ----------------------------------------------------------------------------------
+
+    private static byte[] encode(Sale sale) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(sale.getClientRef());
+        out.writeInt(sale.getAccountId());
+        out.writeLong(sale.getSaleDatetime().getTime());
+        out.writeLong(sale.getTotalCents());
+        writeNullableUTF(out, sale.getPaymentMethod());
+        writeNullableUTF(out, sale.getRemarks());
+        out.writeInt(sale.getItems().size());
+        for (SaleItem item : sale.getItems()) {
+            out.writeInt(item.getProductId());
+            out.writeInt(item.getQty());
+            out.writeLong(item.getPriceCents());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Sale decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Sale sale = new Sale();
+        sale.setClientRef(in.readUTF());
+        sale.setAccountId(in.readInt());
+        sale.setSaleDatetime(new Timestamp(in.readLong()));
+        sale.setTotalCents(in.readLong());
+        sale.setPaymentMethod(readNullableUTF(in));
+        sale.setRemarks(readNullableUTF(in));
+        int count = in.readInt();
+        List<SaleItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SaleItem item = new SaleItem();
+            item.setProductId(in.readInt());
+            item.setQty(in.readInt());
+            item.setPriceCents(in.readLong());
+            items.add(item);
+        }
+        sale.setItems(items);
+        return sale;
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,130 @@
+package dao;
+
+import models.Account;
+import models.Permission;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Role-based access checks as bitmask tests.
+ *
+ * Each role is compiled once into a {@code long} of {@link Permission} bits, and the mask of
+ * every account seen is cached by account_id, so {@link #has} on a UI action is a map lookup
+ * and an AND. The cache is filled from the Account returned at login ({@link #prime}); on a
+ * miss the role is read again with AccountDAO.getAccountById.
+ *
+ * AccountDAO.updateAccount and deleteAccount invalidate the account, so a changed role (or
+ * a deleted user) takes effect on this terminal at the next check. Changes made on other
+ * terminals are only seen after a re-login.
+ */
+public class PermissionCache {
+
+    private static final Map<String, Long> ROLE_MASKS;
+    static {
+        Map<String, Long> roles = new HashMap<>();
+        // Staff: sales, products and stock; no reports, users or settings
+        roles.put("STAFF", Permission.maskOf(
+                Permission.PROCESS_SALES,
+                Permission.VIEW_PRODUCTS,
+                Permission.MANAGE_PRODUCTS,
+                Permission.MANAGE_INVENTORY));
+        // OWNER is the schema's name for the administrator role
+        roles.put("OWNER", Permission.all());
+        roles.put("ADMIN", Permission.all());
+        ROLE_MASKS = Collections.unmodifiableMap(roles);
+    }
+
+    private static volatile PermissionCache instance;
+
+    private final Map<Integer, Long> masksById = new ConcurrentHashMap<>();
+    private final AccountDAO accountDAO = new AccountDAO();
+
+    private PermissionCache() {
+    }
+
+    public static PermissionCache getInstance() {
+        PermissionCache c = instance;
+        if (c == null) {
+            synchronized (PermissionCache.class) {
+                c = instance;
+                if (c == null) {
+                    c = new PermissionCache();
+                    instance = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * @return the permission mask of a role; 0 for an unknown or missing role
+     */
+    public static long compile(String role) {
+        if (role == null) {
+            return 0L;
+        }
+        return ROLE_MASKS.getOrDefault(role.trim().toUpperCase(Locale.ROOT), 0L);
+    }
+
+    // ----------------------------------------------------------------------------------
+    // CHECKS
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Cache the permissions of a freshly loaded account (e.g. the one login returned).
+     * @return its permission mask
+     */
+    public long prime(Account account) {
+        long mask = compile(account.getRole());
+        masksById.put(account.getAccountId(), mask);
+        return mask;
+    }
+
+    /**
+     * @return the account's permission mask, reading its role from the database on a miss;
+     *         0 if the account no longer exists or cannot be read
+     */
+    public long permissionsOf(int accountId) {
+        Long mask = masksById.get(accountId);
+        if (mask != null) {
+            return mask;
+        }
+        long loaded;
+        try {
+            Account acc = accountDAO.getAccountById(accountId);
+            loaded = acc != null ? compile(acc.getRole()) : 0L;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 0L; // Deny, and try the database again next time
+        }
+        masksById.put(accountId, loaded);
+        return loaded;
+    }
+
+    public boolean has(int accountId, Permission permission) {
+        return (permissionsOf(accountId) & permission.bit()) != 0;
+    }
+
+    public boolean has(Account account, Permission permission) {
+        return account != null && has(account.getAccountId(), permission);
+    }
+
+    // ----------------------------------------------------------------------------------
+    // INVALIDATION
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Forget an account's permissions; the next check reads its role again.
+     */
+    public void invalidate(int accountId) {
+        masksById.remove(accountId);
+    }
+
+    public void invalidateAll() {
+        masksById.clear();
+    }
+}
@@ -0,0 +1,297 @@
+package dao;
+
+import models.Product;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of the active product catalog, indexed by product_id, SKU and category.
+ *
+ * The whole catalog is loaded once and then kept current by write-through from ProductDAO,
+ * SaleDAO and StockAdjustmentDAO. Writes made by other terminals are picked up when the
+ * catalog expires (pos.catalog.ttlMillis, default 5 minutes) or on a lookup miss.
+ *
+ * Callers always receive copies, so editing a returned Product never changes the cache.
+ * Every write-through is also passed on to {@link LowStockTracker}.
+ */
+public class ProductCache {
+
+    private static final ProductCache INSTANCE = new ProductCache();
+
+    private final long ttlMillis = Long.getLong("pos.catalog.ttlMillis", 5 * 60_000L);
+
+    // Insertion order = product_id order as returned by the initial load
+    private final Map<Integer, Product> byId = new LinkedHashMap<>();
+    private final Map<String, Product> bySku = new HashMap<>();
+    private final Map<String, Map<Integer, Product>> byCategory = new HashMap<>();
+    private boolean loaded;
+    private long loadedAt;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LowStockTracker lowStock = LowStockTracker.getInstance();
+
+    private ProductCache() {
+    }
+
+    public static ProductCache getInstance() {
+        return INSTANCE;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // READS
+    // ----------------------------------------------------------------------------------
+
+    List<Product> getAll(ProductDAO dao) throws Exception {
+        List<Product> reloaded;
+        List<Product> result;
+        synchronized (this) {
+            reloaded = ensureLoaded(dao);
+            hits.increment();
+            result = new ArrayList<>(byId.size());
+            for (Product p : byId.values()) {
+                result.add(copy(p));
+            }
+        }
+        syncLowStock(reloaded);
+        return result;
+    }
+
+    Product getById(ProductDAO dao, int productId) throws Exception {
+        List<Product> reloaded;
+        Product cached;
+        synchronized (this) {
+            reloaded = ensureLoaded(dao);
+            Product p = byId.get(productId);
+            cached = p != null ? copy(p) : null;
+        }
+        syncLowStock(reloaded);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        // Not in the catalog: may have been added by another terminal since the last load
+        misses.increment();
+        Product fromDb = dao.queryProductById(productId);
+        if (fromDb != null) {
+            put(fromDb);
+        }
+        return fromDb;
+    }
+
+    Product getBySku(ProductDAO dao, String sku) throws Exception {
+        List<Product> reloaded;
+        Product cached;
+        synchronized (this) {
+            reloaded = ensureLoaded(dao);
+            Product p = bySku.get(sku);
+            cached = p != null ? copy(p) : null;
+        }
+        syncLowStock(reloaded);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Product fromDb = dao.queryProductBySku(sku);
+        if (fromDb != null) {
+            put(fromDb);
+        }
+        return fromDb;
+    }
+
+    List<Product> getByCategory(ProductDAO dao, String category) throws Exception {
+        List<Product> reloaded;
+        List<Product> result = new ArrayList<>();
+        synchronized (this) {
+            reloaded = ensureLoaded(dao);
+            hits.increment();
+            Map<Integer, Product> members = byCategory.get(category);
+            if (members != null) {
+                for (Product p : members.values()) {
+                    result.add(copy(p));
+                }
+            }
+        }
+        syncLowStock(reloaded);
+        return result;
+    }
+
+    /**
+     * Reload the catalog if it was never loaded or has expired. Call with the monitor held.
+     * @return the freshly loaded products (not shared with the indexes), or null if the
+     *         cache was still current; pass it to {@link #syncLowStock} after releasing the lock
+     */
+    private List<Product> ensureLoaded(ProductDAO dao) throws Exception {
+        if (loaded && System.currentTimeMillis() - loadedAt < ttlMillis) {
+            return null;
+        }
+        if (loaded) {
+            evictions.add(byId.size());
+        }
+        misses.increment();
+        List<Product> products = dao.loadActiveProducts();
+        clearIndexes();
+        for (Product p : products) {
+            index(copy(p)); // Write-through edits the indexed copies in place
+        }
+        loaded = true;
+        loadedAt = System.currentTimeMillis();
+        return products;
+    }
+
+    /**
+     * Hand a reload to LowStockTracker outside the cache monitor, so its lock and its
+     * listeners never run while lookups are blocked.
+     */
+    private void syncLowStock(List<Product> reloaded) {
+        if (reloaded != null) {
+            lowStock.sync(reloaded); // Picks up other terminals' stock changes too
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // WRITE-THROUGH
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Adds or replaces a product after it was written to the database.
+     */
+    public void put(Product product) {
+        synchronized (this) {
+            if (loaded) { // Nothing cached yet: the first read loads the current row anyway
+                unindex(product.getProductId());
+                if (product.isActive()) {
+                    index(copy(product));
+                }
+            }
+        }
+        lowStock.update(product);
+    }
+
+    /**
+     * Drops a product, e.g. after it was deactivated.
+     */
+    public void remove(int productId) {
+        synchronized (this) {
+            if (unindex(productId) != null) {
+                evictions.increment();
+            }
+        }
+        lowStock.remove(productId);
+    }
+
+    /**
+     * Sets the absolute stock level of a cached product.
+     */
+    public void setStock(int productId, int stockQty) {
+        synchronized (this) {
+            Product p = byId.get(productId);
+            if (p != null) {
+                p.setStockQty(stockQty);
+            }
+        }
+        lowStock.setStock(productId, stockQty);
+    }
+
+    /**
+     * Applies a committed stock change (negative for sales, positive for restocks/voids).
+     */
+    public void applyStockDelta(int productId, int delta) {
+        synchronized (this) {
+            Product p = byId.get(productId);
+            if (p != null) {
+                p.setStockQty(p.getStockQty() + delta);
+            }
+        }
+        lowStock.applyStockDelta(productId, delta);
+    }
+
+    /**
+     * Forces the next read to reload the whole catalog.
+     */
+    public synchronized void invalidateAll() {
+        if (loaded) {
+            evictions.add(byId.size());
+        }
+        clearIndexes();
+        loaded = false;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // STATS
+    // ----------------------------------------------------------------------------------
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public synchronized int size() { return byId.size(); }
+
+    @Override
+    public String toString() {
+        return "ProductCache[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    // ----------------------------------------------------------------------------------
+    // INDEX MAINTENANCE
+    // ----------------------------------------------------------------------------------
+
+    private void index(Product p) {
+        byId.put(p.getProductId(), p);
+        if (p.getSku() != null) {
+            bySku.put(p.getSku(), p);
+        }
+        if (p.getCategory() != null) {
+            byCategory.computeIfAbsent(p.getCategory(), c -> new LinkedHashMap<>()).put(p.getProductId(), p);
+        }
+    }
+
+    private Product unindex(int productId) {
+        Product old = byId.remove(productId);
+        if (old != null) {
+            if (old.getSku() != null) {
+                bySku.remove(old.getSku());
+            }
+            if (old.getCategory() != null) {
+                Map<Integer, Product> members = byCategory.get(old.getCategory());
+                if (members != null) {
+                    members.remove(productId);
+                    if (members.isEmpty()) {
+                        byCategory.remove(old.getCategory());
+                    }
+                }
+            }
+        }
+        return old;
+    }
+
+    private void clearIndexes() {
+        byId.clear();
+        bySku.clear();
+        byCategory.clear();
+    }
+
+    static Product copy(Product src) {
+        Product p = new Product();
+        p.setProductId(src.getProductId());
+        p.setSku(src.getSku());
+        p.setName(src.getName());
+        p.setCategory(src.getCategory());
+        p.setPriceCents(src.getPriceCents());
+        p.setCostCents(src.getCostCents());
+        p.setStockQty(src.getStockQty());
+        p.setReorderLevel(src.getReorderLevel());
+        p.setCreatedAt(src.getCreatedAt());
+        p.setUpdatedAt(src.getUpdatedAt());
+        p.setActive(src.isActive());
+        return p;
+    }
+}
@@ -1,6 +1,7 @@
 package dao;
 
 import db.DatabaseConnection;
+import models.Money;
 import models.Product;
 
 import java.sql.*;
@@ -9,70 +10,112 @@ import java.util.List;
 
 public class ProductDAO {
 
+    // Every column Product maps; created_at/updated_at are never read
+    private static final String PRODUCT_COLUMNS =
+            "product_id, sku, name, category, price, cost, stock_qty, reorder_level, is_active";
+
+    private final ProductCache cache = ProductCache.getInstance();
+
     // Add a new product (No change needed here)
     // NOTE: Ensure your addProduct also sets 'is_active = TRUE'
     // or rely on the column's default value in the DB.
     public void addProduct(Product product) throws Exception {
         String sql = "INSERT INTO products (sku, name, category, price, cost, stock_qty, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, product.getSku());
             stmt.setString(2, product.getName());
             stmt.setString(3, product.getCategory());
-            stmt.setDouble(4, product.getPrice());
-            stmt.setDouble(5, product.getCost());
+            Money.write(stmt, 4, product.getPriceCents());
+            Money.write(stmt, 5, product.getCostCents());
             stmt.setInt(6, product.getStockQty());
             stmt.setInt(7, product.getReorderLevel());
             stmt.executeUpdate();
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    product.setProductId(keys.getInt(1));
+                    cache.put(product);
+                } else {
+                    cache.invalidateAll();
+                }
+            }
         }
     }
 
-    // Get all products (MODIFIED: Only retrieves active products)
+    // Get all products (served from the catalog cache)
     public List<Product> getAllProducts() throws Exception {
+        return cache.getAll(this);
+    }
+
+    // Full catalog load used by ProductCache (Only retrieves active products)
+    List<Product> loadActiveProducts() throws Exception {
         List<Product> products = new ArrayList<>();
         // ONLY select active products
-        String sql = "SELECT * FROM products WHERE is_active = TRUE";
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products WHERE is_active = TRUE";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
+            ProductRowMapper rows = new ProductRowMapper(rs);
             while (rs.next()) {
-                Product p = new Product();
-                p.setProductId(rs.getInt("product_id"));
-                p.setSku(rs.getString("sku"));
-                p.setName(rs.getString("name"));
-                p.setCategory(rs.getString("category"));
-                p.setPrice(rs.getDouble("price"));
-                p.setCost(rs.getDouble("cost"));
-                p.setStockQty(rs.getInt("stock_qty"));
-                p.setReorderLevel(rs.getInt("reorder_level"));
-                // ASSUMING you added the 'is_active' field to your Product model
-                p.setActive(rs.getBoolean("is_active"));
-                products.add(p);
+                products.add(rows.map());
             }
         }
         return products;
     }
 
-    // Get a product by ID (MODIFIED: Only retrieves active products)
+    /**
+     * Receives products one at a time from {@link #forEachActiveProduct}.
+     */
+    public interface ProductRowHandler {
+        void onRow(Product product) throws Exception;
+    }
+
+    /**
+     * Scan all active products straight from the database without building a list or
+     * allocating a Product per row (bypasses the catalog cache; for exports and bulk jobs).
+     *
+     * The same Product instance is reused for every row; copy what you need to keep.
+     * @return the number of rows scanned
+     */
+    public long forEachActiveProduct(ProductRowHandler handler) throws Exception {
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products WHERE is_active = TRUE";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = stmt.executeQuery()) {
+            return new ProductRowMapper(rs).forEach(handler::onRow);
+        }
+    }
+
+    // Get a product by ID (served from the catalog cache)
     public Product getProductById(int productId) throws Exception {
+        return cache.getById(this, productId);
+    }
+
+    /**
+     * Read a product from the database, bypassing the catalog cache (which may be minutes
+     * old), and refresh the cache with it. Use before editing: updateProduct writes every
+     * field back, so a stale stock_qty would undo sales made on other terminals.
+     */
+    public Product getProductForEdit(int productId) throws Exception {
+        Product p = queryProductById(productId);
+        if (p != null) {
+            cache.put(p);
+        }
+        return p;
+    }
+
+    // Database lookup by ID, used on a cache miss (Only retrieves active products)
+    Product queryProductById(int productId) throws Exception {
         // Only select active products
-        String sql = "SELECT * FROM products WHERE product_id = ? AND is_active = TRUE";
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products WHERE product_id = ? AND is_active = TRUE";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, productId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Product p = new Product();
-                    p.setProductId(rs.getInt("product_id"));
-                    p.setSku(rs.getString("sku"));
-                    p.setName(rs.getString("name"));
-                    p.setCategory(rs.getString("category"));
-                    p.setPrice(rs.getDouble("price"));
-                    p.setCost(rs.getDouble("cost"));
-                    p.setStockQty(rs.getInt("stock_qty"));
-                    p.setReorderLevel(rs.getInt("reorder_level"));
-                    p.setActive(rs.getBoolean("is_active"));
-                    return p;
+                    return new ProductRowMapper(rs).map();
                 }
             }
         }
@@ -87,13 +130,14 @@ public class ProductDAO {
             stmt.setString(1, product.getSku());
             stmt.setString(2, product.getName());
             stmt.setString(3, product.getCategory());
-            stmt.setDouble(4, product.getPrice());
-            stmt.setDouble(5, product.getCost());
+            Money.write(stmt, 4, product.getPriceCents());
+            Money.write(stmt, 5, product.getCostCents());
             stmt.setInt(6, product.getStockQty());
             stmt.setInt(7, product.getReorderLevel());
             stmt.setInt(8, product.getProductId());
             stmt.executeUpdate();
         }
+        cache.put(product);
     }
 
     // REPLACED physical delete with a soft delete/deactivate (NEW METHOD)
@@ -108,88 +152,134 @@ public class ProductDAO {
             stmt.setInt(1, productId);
             stmt.executeUpdate();
         }
+        cache.remove(productId);
     }
 
     // NOTE: The old public void deleteProduct(int productId) method is now removed.
 
-    // Get product by SKU (MODIFIED: Only retrieves active products)
+    // Get product by SKU (served from the catalog cache)
     public Product getProductBySku(String sku) throws Exception {
+        return cache.getBySku(this, sku);
+    }
+
+    // Database lookup by SKU, used on a cache miss (Only retrieves active products)
+    Product queryProductBySku(String sku) throws Exception {
         // Only select active products
-        String sql = "SELECT * FROM products WHERE sku = ? AND is_active = TRUE";
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products WHERE sku = ? AND is_active = TRUE";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, sku);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Product p = new Product();
-                    p.setProductId(rs.getInt("product_id"));
-                    p.setSku(rs.getString("sku"));
-                    p.setName(rs.getString("name"));
-                    p.setCategory(rs.getString("category"));
-                    p.setPrice(rs.getDouble("price"));
-                    p.setCost(rs.getDouble("cost"));
-                    p.setStockQty(rs.getInt("stock_qty"));
-                    p.setReorderLevel(rs.getInt("reorder_level"));
-                    p.setActive(rs.getBoolean("is_active"));
-                    return p;
+                    return new ProductRowMapper(rs).map();
                 }
             }
         }
         return null;
     }
 
-    // Get products by category (MODIFIED: Only retrieves active products)
+    // Get products by category (served from the catalog cache)
     public List<Product> getProductsByCategory(String category) throws Exception {
-        List<Product> products = new ArrayList<>();
-        // Only select active products
-        String sql = "SELECT * FROM products WHERE category = ? AND is_active = TRUE";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, category);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Product p = new Product();
-                    p.setProductId(rs.getInt("product_id"));
-                    p.setSku(rs.getString("sku"));
-                    p.setName(rs.getString("name"));
-                    p.setCategory(rs.getString("category"));
-                    p.setPrice(rs.getDouble("price"));
-                    p.setCost(rs.getDouble("cost"));
-                    p.setStockQty(rs.getInt("stock_qty"));
-                    p.setReorderLevel(rs.getInt("reorder_level"));
-                    p.setActive(rs.getBoolean("is_active"));
-                    products.add(p);
-                }
-            }
-        }
-        return products;
+        return cache.getByCategory(this, category);
     }
 
     // Get products with low stock (MODIFIED: Only retrieves active products)
     public List<Product> getLowStockProducts() throws Exception {
-        List<Product> products = new ArrayList<>();
+        List<Product> products;
         // Only select active products
-        String sql = "SELECT * FROM products WHERE stock_qty <= reorder_level AND is_active = TRUE";
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products WHERE stock_qty <= reorder_level AND is_active = TRUE";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                Product p = new Product();
-                p.setProductId(rs.getInt("product_id"));
-                p.setSku(rs.getString("sku"));
-                p.setName(rs.getString("name"));
-                p.setCategory(rs.getString("category"));
-                p.setPrice(rs.getDouble("price"));
-                p.setCost(rs.getDouble("cost"));
-                p.setStockQty(rs.getInt("stock_qty"));
-                p.setReorderLevel(rs.getInt("reorder_level"));
-                p.setActive(rs.getBoolean("is_active"));
-                products.add(p);
-            }
+            products = new ProductRowMapper(rs).mapAll();
         }
         return products;
     }
 
+    // ----------------------------------------------------------------------------------
+    // PROJECTIONS (only the columns a view needs, straight from the database)
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * A product table row: what ProductManagementWindow lists.
+     */
+    public record ProductListing(int productId, String sku, String name, String category,
+                                 long priceCents, int stockQty) {
+    }
+
+    public static final Projection<ProductListing> LISTING = Projection.of(
+            rs -> new ProductListing(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    Money.read(rs, 5), rs.getInt(6)),
+            "product_id", "sku", "name", "category", "price", "stock_qty");
+
+    /**
+     * A pick-list entry (dropdowns, search results).
+     */
+    public record ProductOption(int productId, String sku, String name, long priceCents) {
+    }
+
+    public static final Projection<ProductOption> OPTION = Projection.of(
+            rs -> new ProductOption(rs.getInt(1), rs.getString(2), rs.getString(3), Money.read(rs, 4)),
+            "product_id", "sku", "name", "price");
+
+    /**
+     * Stock position of a product (reorder lists).
+     */
+    public record ProductStockLevel(int productId, String sku, String name, int stockQty, int reorderLevel) {
+    }
+
+    public static final Projection<ProductStockLevel> STOCK_LEVEL = Projection.of(
+            rs -> new ProductStockLevel(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5)),
+            "product_id", "sku", "name", "stock_qty", "reorder_level");
+
+    /**
+     * Active products in product_id order, as the given projection. Always reads the
+     * database (the catalog cache holds full rows); use it for views that want fresh data
+     * and only a few columns.
+     */
+    public <R> List<R> listActiveProducts(Projection<R> projection) throws Exception {
+        return selectActive(projection, null, null);
+    }
+
+    public <R> List<R> listActiveProductsByCategory(Projection<R> projection, String category) throws Exception {
+        return selectActive(projection, "category = ?", category);
+    }
+
+    public <R> List<R> listLowStockProducts(Projection<R> projection) throws Exception {
+        return selectActive(projection, "stock_qty <= reorder_level", null);
+    }
+
+    /**
+     * @return the active product as the given projection, or null
+     */
+    public <R> R findActiveProductById(Projection<R> projection, int productId) throws Exception {
+        List<R> rows = selectActive(projection, "product_id = ?", productId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public <R> R findActiveProductBySku(Projection<R> projection, String sku) throws Exception {
+        List<R> rows = selectActive(projection, "sku = ?", sku);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private <R> List<R> selectActive(Projection<R> projection, String condition, Object param) throws Exception {
+        String sql = "SELECT " + projection.columns() + " FROM products WHERE is_active = TRUE" +
+                (condition != null ? " AND " + condition : "") + " ORDER BY product_id";
+        List<R> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (param != null) {
+                stmt.setObject(1, param);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(projection.read(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
     // Update stock quantity (for inventory adjustments) (No change needed here)
     public void updateStock(int productId, int newQuantity) throws Exception {
         String sql = "UPDATE products SET stock_qty = ? WHERE product_id = ?";
@@ -199,5 +289,48 @@ public class ProductDAO {
             stmt.setInt(2, productId);
             stmt.executeUpdate();
         }
+        cache.setStock(productId, newQuantity);
+    }
+
+    // ----------------------------------------------------------------------------------
+    // ROW MAPPING
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * products row -> Product, by column index (resolved once per ResultSet).
+     */
+    private static final class ProductRowMapper extends RowMapper<Product> {
+        private final int productId, sku, name, category, price, cost, stockQty, reorderLevel, active;
+
+        ProductRowMapper(ResultSet rs) throws SQLException {
+            super(rs);
+            productId = column("product_id");
+            sku = column("sku");
+            name = column("name");
+            category = column("category");
+            price = column("price");
+            cost = column("cost");
+            stockQty = column("stock_qty");
+            reorderLevel = column("reorder_level");
+            active = column("is_active");
+        }
+
+        @Override
+        protected Product newRow() {
+            return new Product();
+        }
+
+        @Override
+        protected void fill(Product p) throws SQLException {
+            p.setProductId(rs.getInt(productId));
+            p.setSku(rs.getString(sku));
+            p.setName(rs.getString(name));
+            p.setCategory(rs.getString(category));
+            p.setPriceCents(Money.read(rs, price));
+            p.setCostCents(Money.read(rs, cost));
+            p.setStockQty(rs.getInt(stockQty));
+            p.setReorderLevel(rs.getInt(reorderLevel));
+            p.setActive(rs.getBoolean(active));
+        }
     }
-}
\ No newline at end of file
+}
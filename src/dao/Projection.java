@@ -0,0 +1,45 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The columns a caller needs from a query, and how to turn them into a view object
+ * (usually a small record). DAO methods that take a Projection select only these columns
+ * instead of SELECT *, so wide or unused columns never cross the wire.
+ *
+ * The reader gets the columns by position, in the order they were listed (1, 2, ...).
+ * Projections are immutable; define them once as constants.
+ */
+public final class Projection<R> {
+
+    public interface Reader<R> {
+        R read(ResultSet rs) throws SQLException;
+    }
+
+    private final String[] columns;
+    private final Reader<R> reader;
+
+    private Projection(Reader<R> reader, String[] columns) {
+        this.reader = reader;
+        this.columns = columns;
+    }
+
+    public static <R> Projection<R> of(Reader<R> reader, String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("A projection needs at least one column");
+        }
+        return new Projection<>(reader, columns.clone());
+    }
+
+    /**
+     * @return the select list, e.g. "product_id, sku, name"
+     */
+    String columns() {
+        return String.join(", ", columns);
+    }
+
+    R read(ResultSet rs) throws SQLException {
+        return reader.read(rs);
+    }
+}
@@ -0,0 +1,437 @@
+package dao;
+
+import db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sales-velocity reorder forecasting.
+ *
+ * {@link #updateStats} makes one streaming pass over the sale_items/sales rows added since
+ * the last run (bookmarked by sale_id in forecast_state) and adds them to two per-product
+ * aggregates: product_daily_sales (units per day) and product_sales_profile (units by
+ * weekday and hour, all history). Each nightly run therefore reads only that day's sales.
+ *
+ * A sale_id below the bookmark that was not visible yet (still uncommitted, e.g. a group
+ * commit or an offline replay in progress, or rolled back) is kept in forecast_sale_gap and
+ * read by the next run if it has appeared by then. A gap still missing after
+ * pos.forecast.gapGraceMinutes is taken to be a rollback and dropped.
+ *
+ * {@link #computeForecasts} then derives, per product, 7- and 28-day moving averages of
+ * daily units, the weekday seasonality factor (busiest weekday's share of sales x 7) and a
+ * suggested reorder level:
+ * <pre>
+ *   rate      = (avg7 + avg28) / 2 * weekdayFactor
+ *   suggested = ceil(rate * leadTime + z * stddev28 * sqrt(leadTime))
+ * </pre>
+ * i.e. expected demand until a reorder arrives plus safety stock. Results are written to
+ * reorder_forecast and shown with current stock by the reorder_forecast_report view.
+ * Suggestions are not applied to products.reorder_level automatically.
+ *
+ * Settings (system properties):
+ *   pos.forecast.leadTimeDays   days from reorder to delivery (default 3)
+ *   pos.forecast.serviceZ       safety stock z-score (default 1.65, ~95% service level)
+ *   pos.forecast.fetchSize      JDBC fetch size for the pass (default: MySQL row streaming)
+ *   pos.forecast.gapGraceMinutes  how long a missing sale_id is waited for (default 60)
+ *
+ * Sales voided after they were counted stay in the aggregates until a full rebuild
+ * ({@link #resetStats}).
+ */
+public class ReorderForecastDAO {
+
+    private static final String JOB = "reorder_forecast";
+    private static final int SHORT_WINDOW = 7;
+    private static final int LONG_WINDOW = 28;
+
+    private final double leadTimeDays = Double.parseDouble(System.getProperty("pos.forecast.leadTimeDays", "3"));
+    private final double serviceZ = Double.parseDouble(System.getProperty("pos.forecast.serviceZ", "1.65"));
+    private final int gapGraceMinutes = Integer.getInteger("pos.forecast.gapGraceMinutes", 60);
+
+    /**
+     * Add sales newer than the bookmark, and earlier gaps that have since been committed, to
+     * the per-product aggregates, in one transaction together with the new bookmark and gaps.
+     * @return number of sale_items rows processed
+     */
+    public long updateStats() throws Exception {
+        long lastSaleId = readBookmark();
+        long maxSaleId;
+        List<Long> newGaps = new ArrayList<>();    // ids in (lastSaleId, maxSaleId] not visible
+        List<Long> filledGaps = new ArrayList<>(); // earlier gaps now visible, read in this pass
+
+        // Deltas keyed by product, accumulated in the single pass
+        Map<Long, int[]> dailyUnits = new HashMap<>();       // (product_id << 32 | epochDay) -> units
+        Map<Integer, long[]> profileUnits = new HashMap<>(); // product_id -> units[weekday * 24 + hour]
+
+        String sql = "SELECT i.product_id, s.sale_datetime, i.qty FROM sale_items i " +
+                "JOIN sales s ON s.sale_id = i.sale_id " +
+                "WHERE s.sale_id > ? AND s.sale_id <= ? AND s.sale_datetime IS NOT NULL " +
+                "UNION ALL " +
+                "SELECT i.product_id, s.sale_datetime, i.qty FROM forecast_sale_gap g " +
+                "JOIN sales s ON s.sale_id = g.sale_id " +
+                "JOIN sale_items i ON i.sale_id = s.sale_id " +
+                "WHERE s.sale_datetime IS NOT NULL";
+        long rows = 0;
+
+        // All reads in one REPEATABLE READ snapshot, so the gaps found are exactly the sales
+        // the pass did not see
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(sale_id), 0) FROM sales")) {
+                    rs.next();
+                    maxSaleId = Math.max(rs.getLong(1), lastSaleId);
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT sale_id FROM sales WHERE sale_id > ? AND sale_id <= ? ORDER BY sale_id")) {
+                    stmt.setLong(1, lastSaleId);
+                    stmt.setLong(2, maxSaleId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        long expected = lastSaleId + 1;
+                        while (rs.next()) {
+                            long saleId = rs.getLong(1);
+                            for (long id = expected; id < saleId; id++) {
+                                newGaps.add(id);
+                            }
+                            expected = saleId + 1;
+                        }
+                    }
+                }
+
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(
+                             "SELECT g.sale_id FROM forecast_sale_gap g JOIN sales s ON s.sale_id = g.sale_id")) {
+                    while (rs.next()) {
+                        filledGaps.add(rs.getLong(1));
+                    }
+                }
+
+                if (maxSaleId == lastSaleId && filledGaps.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    stmt.setFetchSize(Integer.getInteger("pos.forecast.fetchSize", Integer.MIN_VALUE));
+                    stmt.setLong(1, lastSaleId);
+                    stmt.setLong(2, maxSaleId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            int productId = rs.getInt(1);
+                            LocalDateTime at = rs.getTimestamp(2).toLocalDateTime();
+                            int qty = rs.getInt(3);
+
+                            long dayKey = ((long) productId << 32) | (at.toLocalDate().toEpochDay() & 0xFFFFFFFFL);
+                            dailyUnits.computeIfAbsent(dayKey, k -> new int[1])[0] += qty;
+                            int slot = (at.getDayOfWeek().getValue() - 1) * 24 + at.getHour();
+                            profileUnits.computeIfAbsent(productId, k -> new long[7 * 24])[slot] += qty;
+                            rows++;
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
+            }
+        }
+
+        String dailySql = "INSERT INTO product_daily_sales (product_id, sale_date, units) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE units = units + VALUES(units)";
+        String profileSql = "INSERT INTO product_sales_profile (product_id, weekday, sale_hour, units) VALUES (?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE units = units + VALUES(units)";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Lock the bookmark; a concurrent run that got here first has moved it
+            if (lockBookmark(conn) != lastSaleId) {
+                throw new SQLException("Reorder forecast stats were updated by another run; try again");
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(dailySql)) {
+                for (Map.Entry<Long, int[]> e : dailyUnits.entrySet()) {
+                    stmt.setInt(1, (int) (e.getKey() >>> 32));
+                    stmt.setDate(2, Date.valueOf(LocalDate.ofEpochDay((int) (long) e.getKey())));
+                    stmt.setInt(3, e.getValue()[0]);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(profileSql)) {
+                for (Map.Entry<Integer, long[]> e : profileUnits.entrySet()) {
+                    long[] units = e.getValue();
+                    for (int slot = 0; slot < units.length; slot++) {
+                        if (units[slot] != 0) {
+                            stmt.setInt(1, e.getKey());
+                            stmt.setInt(2, slot / 24);
+                            stmt.setInt(3, slot % 24);
+                            stmt.setLong(4, units[slot]);
+                            stmt.addBatch();
+                        }
+                    }
+                }
+                stmt.executeBatch();
+            }
+
+            // Gaps read in this pass; a concurrent run that read them too has removed them
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM forecast_sale_gap WHERE sale_id = ?")) {
+                for (long saleId : filledGaps) {
+                    stmt.setLong(1, saleId);
+                    stmt.addBatch();
+                }
+                for (int deleted : stmt.executeBatch()) {
+                    if (deleted == 0) {
+                        throw new SQLException("Reorder forecast stats were updated by another run; try again");
+                    }
+                }
+            }
+
+            // Still missing after the grace period: rolled back, stop waiting for it
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM forecast_sale_gap WHERE seen_at < NOW() - INTERVAL ? MINUTE")) {
+                stmt.setInt(1, gapGraceMinutes);
+                stmt.executeUpdate();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT IGNORE INTO forecast_sale_gap (sale_id) VALUES (?)")) {
+                for (long saleId : newGaps) {
+                    stmt.setLong(1, saleId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE forecast_state SET last_sale_id = ? WHERE job = ?")) {
+                stmt.setLong(1, maxSaleId);
+                stmt.setString(2, JOB);
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+            return rows;
+
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Recompute reorder_forecast for every product with sales history.
+     * @return number of products forecast
+     */
+    public int computeForecasts() throws Exception {
+        LocalDate today = LocalDate.now();
+        LocalDate windowStart = today.minusDays(LONG_WINDOW);
+
+        Map<Integer, double[]> daily = new HashMap<>();   // product_id -> units per day, index 0 = oldest
+        Map<Integer, long[]> weekday = new HashMap<>();   // product_id -> units per weekday
+        Map<Integer, long[]> hourly = new HashMap<>();    // product_id -> units per hour
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Full days only: [today - 28, today)
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT product_id, sale_date, units FROM product_daily_sales WHERE sale_date >= ? AND sale_date < ?")) {
+                stmt.setDate(1, Date.valueOf(windowStart));
+                stmt.setDate(2, Date.valueOf(today));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int day = (int) (rs.getDate(2).toLocalDate().toEpochDay() - windowStart.toEpochDay());
+                        daily.computeIfAbsent(rs.getInt(1), k -> new double[LONG_WINDOW])[day] += rs.getInt(3);
+                    }
+                }
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT product_id, weekday, sale_hour, units FROM product_sales_profile")) {
+                while (rs.next()) {
+                    int productId = rs.getInt(1);
+                    long units = rs.getLong(4);
+                    weekday.computeIfAbsent(productId, k -> new long[7])[rs.getInt(2)] += units;
+                    hourly.computeIfAbsent(productId, k -> new long[24])[rs.getInt(3)] += units;
+                }
+            }
+        }
+
+        String upsertSql = "INSERT INTO reorder_forecast (product_id, avg_daily_7, avg_daily_28, weekday_factor, " +
+                "peak_weekday, peak_hour, suggested_reorder_level, computed_at) VALUES (?, ?, ?, ?, ?, ?, ?, NOW()) " +
+                "ON DUPLICATE KEY UPDATE avg_daily_7 = VALUES(avg_daily_7), avg_daily_28 = VALUES(avg_daily_28), " +
+                "weekday_factor = VALUES(weekday_factor), peak_weekday = VALUES(peak_weekday), " +
+                "peak_hour = VALUES(peak_hour), suggested_reorder_level = VALUES(suggested_reorder_level), " +
+                "computed_at = VALUES(computed_at)";
+
+        int products = 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(upsertSql)) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<Integer, long[]> e : weekday.entrySet()) {
+                    int productId = e.getKey();
+                    double[] days = daily.getOrDefault(productId, new double[LONG_WINDOW]);
+
+                    double avg7 = mean(days, LONG_WINDOW - SHORT_WINDOW);
+                    double avg28 = mean(days, 0);
+                    double sd28 = stdDev(days, avg28);
+
+                    long[] byWeekday = e.getValue();
+                    int peakWeekday = argMax(byWeekday);
+                    long total = sum(byWeekday);
+                    double weekdayFactor = total > 0 ? byWeekday[peakWeekday] * 7.0 / total : 1.0;
+                    int peakHour = argMax(hourly.get(productId));
+
+                    double rate = (avg7 + avg28) / 2 * weekdayFactor;
+                    int suggested = (int) Math.ceil(rate * leadTimeDays + serviceZ * sd28 * Math.sqrt(leadTimeDays));
+
+                    stmt.setInt(1, productId);
+                    stmt.setDouble(2, round(avg7, 1000));
+                    stmt.setDouble(3, round(avg28, 1000));
+                    stmt.setDouble(4, round(weekdayFactor, 1000));
+                    stmt.setInt(5, peakWeekday);
+                    stmt.setInt(6, peakHour);
+                    stmt.setInt(7, suggested);
+                    stmt.addBatch();
+                    products++;
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Clear the aggregates and the bookmark so the next updateStats reads all history
+     * again (e.g. after many voids).
+     */
+    public void resetStats() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            try {
+                stmt.executeUpdate("DELETE FROM product_daily_sales");
+                stmt.executeUpdate("DELETE FROM product_sales_profile");
+                stmt.executeUpdate("DELETE FROM forecast_sale_gap");
+                stmt.executeUpdate("DELETE FROM forecast_state WHERE job = '" + JOB + "'");
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // BOOKMARK
+    // ----------------------------------------------------------------------------------
+
+    private long readBookmark() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT last_sale_id FROM forecast_state WHERE job = ?")) {
+            stmt.setString(1, JOB);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Lock the bookmark row for this transaction (created on the first run).
+     */
+    private long lockBookmark(Connection conn) throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT IGNORE INTO forecast_state (job, last_sale_id) VALUES (?, 0)")) {
+            insert.setString(1, JOB);
+            insert.executeUpdate();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT last_sale_id FROM forecast_state WHERE job = ? FOR UPDATE")) {
+            stmt.setString(1, JOB);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // MATH HELPERS
+    // ----------------------------------------------------------------------------------
+
+    private static double mean(double[] values, int from) {
+        double sum = 0;
+        for (int i = from; i < values.length; i++) {
+            sum += values[i];
+        }
+        return sum / (values.length - from);
+    }
+
+    private static double stdDev(double[] values, double mean) {
+        double sq = 0;
+        for (double v : values) {
+            sq += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(sq / values.length);
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long v : values) {
+            total += v;
+        }
+        return total;
+    }
+
+    private static int argMax(long[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static double round(double value, int scale) {
+        return Math.round(value * scale) / (double) scale;
+    }
+}
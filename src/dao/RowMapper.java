@@ -0,0 +1,83 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the rows of one ResultSet to objects by column index.
+ *
+ * A subclass looks up its column labels once in its constructor ({@link #column}) and reads
+ * every row by index afterwards, instead of the driver resolving a label per field per row.
+ * Create one mapper per ResultSet, after executeQuery.
+ *
+ * {@link #map} allocates a new object per row. For large scans {@link #forEach} fills one
+ * reusable instance instead, so nothing is allocated per row; the handler must copy what it
+ * wants to keep.
+ */
+abstract class RowMapper<T> {
+
+    /**
+     * Receives each row of {@link #forEach}; the object is the same for every row.
+     */
+    interface RowHandler<T> {
+        void onRow(T row) throws Exception;
+    }
+
+    protected final ResultSet rs;
+
+    protected RowMapper(ResultSet rs) {
+        this.rs = rs;
+    }
+
+    /**
+     * @return the index of a column label in this ResultSet
+     * @throws SQLException if the query does not return it
+     */
+    protected final int column(String label) throws SQLException {
+        return rs.findColumn(label);
+    }
+
+    protected abstract T newRow();
+
+    /**
+     * Copy the current row into {@code row}, overwriting every mapped field.
+     */
+    protected abstract void fill(T row) throws SQLException;
+
+    /**
+     * @return the current row as a new object
+     */
+    final T map() throws SQLException {
+        T row = newRow();
+        fill(row);
+        return row;
+    }
+
+    /**
+     * Map the remaining rows into a list.
+     */
+    final List<T> mapAll() throws SQLException {
+        List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(map());
+        }
+        return rows;
+    }
+
+    /**
+     * Pass the remaining rows to the handler through one reused (flyweight) object.
+     * @return the number of rows
+     */
+    final long forEach(RowHandler<? super T> handler) throws Exception {
+        T row = newRow();
+        long count = 0;
+        while (rs.next()) {
+            fill(row);
+            handler.onRow(row);
+            count++;
+        }
+        return count;
+    }
+}
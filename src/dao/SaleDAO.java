@@ -1,6 +1,7 @@
 package dao;
 
 import db.DatabaseConnection;
+import models.Money;
 import models.Sale;
 import models.SaleItem;
 
@@ -8,109 +9,235 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 
 public class SaleDAO {
 
-    /**
-     * Helper to map a ResultSet to a Sale object.
-     */
-    private Sale mapResultSetToSale(ResultSet rs) throws SQLException {
-        Sale sale = new Sale();
-        sale.setSaleId(rs.getInt("sale_id"));
-        sale.setAccountId(rs.getInt("account_id"));
-
-        // Map to LocalDateTime for modern Java handling
-        Timestamp timestamp = rs.getTimestamp("sale_datetime");
-        if (timestamp != null) {
-            sale.setSaleDatetime(Timestamp.valueOf(timestamp.toLocalDateTime()));
-        }
+    // Every column Sale / SaleItem maps (client_ref is only read by findSaleIdByClientRef)
+    private static final String SALE_COLUMNS = "sale_id, account_id, sale_datetime, total_amount, payment_method, remarks";
+    private static final String SALE_ITEM_COLUMNS = "sale_item_id, sale_id, product_id, qty, price";
 
-        sale.setTotalAmount(rs.getDouble("total_amount"));
-        sale.setPaymentMethod(rs.getString("payment_method"));
-        sale.setRemarks(rs.getString("remarks"));
-        return sale;
-    }
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
 
     /**
      * Add a new sale with its items (transaction)
      * Includes stock update and sets the generated sale ID.
+     * Throws InsufficientStockException (and saves nothing) if any item is out of stock.
+     * When group commit is enabled (-Dpos.sales.groupCommit=true) the sale is handed to
+     * GroupCommitSaleWriter and committed together with sales from other threads.
+     * When offline mode is enabled (-Dpos.offline.enabled=true) and the database cannot be
+     * reached, the sale is written to the local journal instead and the sale ID stays 0;
+     * OfflineMode replays it once the database is back.
+     *
+     * Idempotent: the sale's client_ref (generated here if the caller has not set one) is
+     * unique in the sales table. Submitting the same sale again, e.g. retrying after a
+     * timeout whose commit did go through, writes nothing and does not touch stock; it just
+     * sets the original sale ID.
      */
     public void addSale(Sale sale) throws Exception {
+        if (sale.getClientRef() == null) {
+            sale.setClientRef(UUID.randomUUID().toString());
+        }
+
+        if (OfflineMode.isOffline()) {
+            OfflineMode.getInstance().journal(sale);
+            return;
+        }
+
+        try {
+            addSaleOnline(sale);
+        } catch (DuplicateSaleException e) {
+            sale.setSaleId(e.getExistingSaleId());
+        } catch (Exception e) {
+            if (!OfflineMode.isEnabled() || !OfflineMode.isConnectionFailure(e)) {
+                throw e;
+            }
+            OfflineMode.getInstance().goOffline(e);
+            OfflineMode.getInstance().journal(sale);
+        }
+    }
+
+    private void addSaleOnline(Sale sale) throws Exception {
+        if (GroupCommitSaleWriter.isEnabled()) {
+            GroupCommitSaleWriter.getInstance().submit(sale);
+            return;
+        }
+
         Connection conn = null;
-        PreparedStatement saleStmt = null;
-        PreparedStatement itemStmt = null;
-        PreparedStatement stockStmt = null;
 
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false); // Start transaction: CRITICAL
 
-            // 1. Insert sale record
-            // Use current time from Java or DB, using NOW() is fine if DB server time is reliable.
-            String saleSql = "INSERT INTO sales (account_id, sale_datetime, total_amount, payment_method, remarks) VALUES (?, NOW(), ?, ?, ?)";
-            saleStmt = conn.prepareStatement(saleSql, Statement.RETURN_GENERATED_KEYS);
+            int saleId = insertSale(conn, sale);
+
+            conn.commit(); // Commit transaction
+            sale.setSaleId(saleId);
+            applyCommittedStock(sale);
+
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback(); // Rollback on error
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ex) {
+                    ex.printStackTrace(); // Connection already broken; keep the original error
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one sale (header, items, stock decrements) on a connection that is already
+     * inside a transaction. The caller commits or rolls back.
+     * @return the generated sale_id
+     * @throws InsufficientStockException if any product has less stock than the sale needs
+     * @throws DuplicateSaleException if a sale with the same client_ref is already stored
+     */
+    int insertSale(Connection conn, Sale sale) throws SQLException {
+        return insertSale(conn, sale, true);
+    }
+
+    /**
+     * @param enforceStock false for sales that already happened (offline replay): stock is
+     *                     decremented even if it goes negative, since the goods are gone
+     */
+    int insertSale(Connection conn, Sale sale, boolean enforceStock) throws SQLException {
+        // 1. Insert sale record
+        // NOW() unless the sale carries its own time (journaled offline sales)
+        String saleSql = "INSERT INTO sales (account_id, sale_datetime, total_amount, payment_method, remarks, client_ref) VALUES (?, COALESCE(?, NOW()), ?, ?, ?, ?)";
+        String itemSql = "INSERT INTO sale_items (sale_id, product_id, qty, price) VALUES (?, ?, ?, ?)";
+        // Conditional decrement: a row is only updated while enough stock is left, so two
+        // terminals selling the last units cannot drive stock negative (no SELECT ... FOR UPDATE)
+        String stockSql = enforceStock
+                ? "UPDATE products SET stock_qty = stock_qty - ? WHERE product_id = ? AND stock_qty >= ?"
+                : "UPDATE products SET stock_qty = stock_qty - ? WHERE product_id = ?";
+
+        try (PreparedStatement saleStmt = conn.prepareStatement(saleSql, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement itemStmt = conn.prepareStatement(itemSql);
+             PreparedStatement stockStmt = conn.prepareStatement(stockSql)) {
+
             saleStmt.setInt(1, sale.getAccountId());
-            saleStmt.setDouble(2, sale.getTotalAmount());
-            saleStmt.setString(3, sale.getPaymentMethod());
-            saleStmt.setString(4, sale.getRemarks());
-            saleStmt.executeUpdate();
+            if (sale.getSaleDatetime() != null) {
+                saleStmt.setTimestamp(2, sale.getSaleDatetime());
+            } else {
+                saleStmt.setNull(2, Types.TIMESTAMP);
+            }
+            Money.write(saleStmt, 3, sale.getTotalCents());
+            saleStmt.setString(4, sale.getPaymentMethod());
+            saleStmt.setString(5, sale.getRemarks());
+            saleStmt.setString(6, sale.getClientRef());
+            try {
+                saleStmt.executeUpdate();
+            } catch (SQLException e) {
+                // The unique client_ref index rejects a resubmitted sale before any stock moves.
+                // Anything else (a dropped connection, a bad value) is rethrown as it is
+                if (!isDuplicateKey(e) || sale.getClientRef() == null) {
+                    throw e;
+                }
+                int existingId;
+                try {
+                    existingId = findSaleIdByClientRef(conn, sale.getClientRef());
+                } catch (SQLException lookupFailed) {
+                    e.addSuppressed(lookupFailed);
+                    throw e;
+                }
+                if (existingId == 0) {
+                    throw e;
+                }
+                throw new DuplicateSaleException(sale.getClientRef(), existingId);
+            }
 
             // Get generated sale_id
-            ResultSet rs = saleStmt.getGeneratedKeys();
             int saleId = 0;
-            if (rs.next()) {
-                saleId = rs.getInt(1);
+            try (ResultSet rs = saleStmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    saleId = rs.getInt(1);
+                }
             }
-            rs.close(); // Close ResultSet immediately
 
             // 2. Insert sale items and update stock (using Batching for efficiency)
-            String itemSql = "INSERT INTO sale_items (sale_id, product_id, qty, price) VALUES (?, ?, ?, ?)";
-            itemStmt = conn.prepareStatement(itemSql);
-
-            String stockSql = "UPDATE products SET stock_qty = stock_qty - ? WHERE product_id = ?";
-            stockStmt = conn.prepareStatement(stockSql);
-
             for (SaleItem item : sale.getItems()) {
                 // Insert sale item (Batch 1)
                 itemStmt.setInt(1, saleId);
                 itemStmt.setInt(2, item.getProductId());
                 itemStmt.setInt(3, item.getQty());
-                itemStmt.setDouble(4, item.getPrice());
+                Money.write(itemStmt, 4, item.getPriceCents());
                 itemStmt.addBatch();
 
                 // Update product stock (Batch 2)
                 stockStmt.setInt(1, item.getQty());
                 stockStmt.setInt(2, item.getProductId());
+                if (enforceStock) {
+                    stockStmt.setInt(3, item.getQty());
+                }
                 stockStmt.addBatch();
             }
 
+            // Stock first: reject the sale before writing items if anything is short
+            int[] updated = stockStmt.executeBatch();
+            List<Integer> shortProducts = new ArrayList<>();
+            for (int i = 0; i < updated.length && enforceStock; i++) {
+                if (updated[i] == 0) {
+                    shortProducts.add(sale.getItems().get(i).getProductId());
+                }
+            }
+            if (!shortProducts.isEmpty()) {
+                throw new InsufficientStockException(shortProducts);
+            }
+
             itemStmt.executeBatch(); // Execute all item inserts
-            stockStmt.executeBatch(); // Execute all stock updates
 
-            conn.commit(); // Commit transaction
-            sale.setSaleId(saleId);
+            // 3. Add to the daily/hourly totals (last, to hold the shared rollup rows briefly)
+            SalesRollupDAO.applySale(conn, saleId, 1);
 
-        } catch (Exception e) {
-            if (conn != null) {
-                try {
-                    conn.rollback(); // Rollback on error
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
-            throw e;
-        } finally {
-            // Use try-with-resources if possible, but manual close block is okay
-            // if you need to set conn.setAutoCommit(true) outside the try-with-resources.
-            if (saleStmt != null) saleStmt.close();
-            if (itemStmt != null) itemStmt.close();
-            if (stockStmt != null) stockStmt.close();
-            if (conn != null) {
-                conn.setAutoCommit(true);
-                conn.close();
+            return saleId;
+        }
+    }
+
+    /**
+     * Whether an INSERT failed on a unique key: MySQL error 1062, or an integrity violation
+     * from a driver that reports no vendor code.
+     */
+    static boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == 1062
+                || (e.getErrorCode() == 0 && e instanceof SQLIntegrityConstraintViolationException);
+    }
+
+    /**
+     * @return the sale_id stored under a client_ref, or 0 if there is none. A locking read,
+     * so it sees a sale committed by another connection after this transaction began.
+     */
+    static int findSaleIdByClientRef(Connection conn, String clientRef) throws SQLException {
+        String sql = "SELECT sale_id FROM sales WHERE client_ref = ? FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, clientRef);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
             }
         }
     }
+
+    /**
+     * Keep the catalog cache in step with the committed stock changes.
+     */
+    void applyCommittedStock(Sale sale) {
+        ProductCache cache = ProductCache.getInstance();
+        for (SaleItem item : sale.getItems()) {
+            cache.applyStockDelta(item.getProductId(), -item.getQty());
+        }
+    }
 // ----------------------------------------------------------------------------------
 
     /**
@@ -118,24 +245,28 @@ public class SaleDAO {
      */
     public List<Sale> getAllSales() throws Exception {
         List<Sale> sales = new ArrayList<>();
-        String sql = "SELECT * FROM sales ORDER BY sale_datetime DESC";
+        String sql = "SELECT " + SALE_COLUMNS + " FROM sales ORDER BY sale_datetime DESC";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
+            SaleRowMapper rows = new SaleRowMapper(rs);
             while (rs.next()) {
-                sales.add(mapResultSetToSale(rs));
+                sales.add(rows.map());
             }
         }
         return sales;
     }
 
     /**
-     * Get sale by ID with its items.
+     * Get sale by ID with its items (one query).
      */
     public Sale getSaleById(int saleId) throws Exception {
-        String sql = "SELECT * FROM sales WHERE sale_id = ?";
+        String sql = "SELECT s.sale_id, s.account_id, s.sale_datetime, s.total_amount, s.payment_method, s.remarks, " +
+                "i.sale_item_id, i.product_id, i.qty, i.price " +
+                "FROM sales s LEFT JOIN sale_items i ON i.sale_id = s.sale_id " +
+                "WHERE s.sale_id = ? ORDER BY i.sale_item_id";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -143,39 +274,118 @@ public class SaleDAO {
             stmt.setInt(1, saleId);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Sale sale = mapResultSetToSale(rs);
-                    // Load sale items
-                    sale.setItems(getSaleItems(saleId));
-                    return sale;
+                Sale sale = null;
+                List<SaleItem> items = new ArrayList<>();
+                SaleRowMapper saleRows = new SaleRowMapper(rs);
+                SaleItemRowMapper itemRows = new SaleItemRowMapper(rs);
+                while (rs.next()) {
+                    if (sale == null) {
+                        sale = saleRows.map();
+                        sale.setItems(items);
+                    }
+                    if (itemRows.hasItem()) { // LEFT JOIN: a sale without items gives one row of NULLs
+                        items.add(itemRows.map());
+                    }
                 }
+                return sale;
             }
         }
-        return null;
+    }
+
+    /**
+     * Get sales within a date range together with their items, in two queries whatever the
+     * number of sales (instead of one getSaleItems call per sale). Items are attached via a
+     * sale_id map. Both queries run in one read transaction, so they see the same sales.
+     * Newest first, like getSalesByDateRange.
+     */
+    public List<Sale> getSalesWithItems(String startDateStr, String endDateStr) throws Exception {
+        List<Sale> sales = new ArrayList<>();
+
+        StringBuilder salesSql = new StringBuilder("SELECT " + SALE_COLUMNS + " FROM sales WHERE 1=1");
+        List<Timestamp> params = new ArrayList<>();
+        appendDateRange(salesSql, params, startDateStr, endDateStr);
+        salesSql.append(" ORDER BY sale_datetime DESC");
+
+        // Same range, applied to the joined sales row
+        StringBuilder itemsSql = new StringBuilder(
+                "SELECT i.sale_item_id, i.sale_id, i.product_id, i.qty, i.price " +
+                "FROM sale_items i JOIN sales s ON s.sale_id = i.sale_id WHERE 1=1");
+        appendDateRange(itemsSql, new ArrayList<>(), startDateStr, endDateStr);
+        itemsSql.append(" ORDER BY i.sale_item_id");
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(salesSql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setTimestamp(i + 1, params.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    SaleRowMapper rows = new SaleRowMapper(rs);
+                    while (rs.next()) {
+                        Sale sale = rows.map();
+                        sale.setItems(new ArrayList<>());
+                        sales.add(sale);
+                    }
+                }
+            }
+
+            SaleIdMap byId = new SaleIdMap(sales.size());
+            for (Sale sale : sales) {
+                byId.put(sale.getSaleId(), sale);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(itemsSql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setTimestamp(i + 1, params.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    SaleItemRowMapper rows = new SaleItemRowMapper(rs);
+                    while (rs.next()) {
+                        Sale sale = byId.get(rows.saleId());
+                        if (sale != null) {
+                            sale.getItems().add(rows.map());
+                        }
+                    }
+                }
+            }
+
+            conn.commit();
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+        return sales;
     }
 
     /**
      * Get items for a specific sale. (No change needed)
      */
     public List<SaleItem> getSaleItems(int saleId) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return readSaleItems(conn, saleId, false);
+        }
+    }
+
+    /**
+     * Read a sale's items on the given connection.
+     * @param lock SELECT ... FOR UPDATE, so the rows cannot change until the caller's
+     *             transaction ends
+     */
+    private static List<SaleItem> readSaleItems(Connection conn, int saleId, boolean lock) throws SQLException {
         List<SaleItem> items = new ArrayList<>();
-        String sql = "SELECT * FROM sale_items WHERE sale_id = ?";
+        String sql = "SELECT " + SALE_ITEM_COLUMNS + " FROM sale_items WHERE sale_id = ?" + (lock ? " FOR UPDATE" : "");
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, saleId);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    SaleItem item = new SaleItem();
-                    item.setSaleItemId(rs.getInt("sale_item_id"));
-                    item.setSaleId(rs.getInt("sale_id"));
-                    item.setProductId(rs.getInt("product_id"));
-                    item.setQty(rs.getInt("qty"));
-                    item.setPrice(rs.getDouble("price"));
-                    items.add(item);
-                }
+                items.addAll(new SaleItemRowMapper(rs).mapAll());
             }
         }
         return items;
@@ -186,19 +396,9 @@ public class SaleDAO {
      */
     public List<Sale> getSalesByDateRange(String startDateStr, String endDateStr) throws Exception {
         List<Sale> sales = new ArrayList<>();
-        StringBuilder sqlBuilder = new StringBuilder("SELECT * FROM sales WHERE 1=1");
+        StringBuilder sqlBuilder = new StringBuilder("SELECT " + SALE_COLUMNS + " FROM sales WHERE 1=1");
         List<Timestamp> params = new ArrayList<>();
-
-        // Use full day range (YYYY-MM-DD 00:00:00 to YYYY-MM-DD 23:59:59)
-        if (startDateStr != null && !startDateStr.isEmpty()) {
-            sqlBuilder.append(" AND sale_datetime >= ?");
-            params.add(Timestamp.valueOf(startDateStr + " 00:00:00"));
-        }
-        if (endDateStr != null && !endDateStr.isEmpty()) {
-            sqlBuilder.append(" AND sale_datetime <= ?");
-            params.add(Timestamp.valueOf(endDateStr + " 23:59:59"));
-        }
-
+        appendDateRange(sqlBuilder, params, startDateStr, endDateStr);
         sqlBuilder.append(" ORDER BY sale_datetime DESC");
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -209,8 +409,9 @@ public class SaleDAO {
             }
 
             try (ResultSet rs = stmt.executeQuery()) {
+                SaleRowMapper rows = new SaleRowMapper(rs);
                 while (rs.next()) {
-                    sales.add(mapResultSetToSale(rs));
+                    sales.add(rows.map());
                 }
             }
         }
@@ -218,21 +419,80 @@ public class SaleDAO {
     }
 
     /**
-     * Get total sales amount for a date range (Fixes type error).
+     * Receives sales one at a time from {@link #streamSalesByDateRange}.
+     */
+    public interface SaleRowHandler {
+        void onRow(Sale sale) throws Exception;
+    }
+
+    /**
+     * Streams sales in a date range (newest first) to the handler without building a list.
+     * Uses a forward-only, read-only cursor; with MySQL the default fetch size of
+     * Integer.MIN_VALUE makes the driver stream rows instead of buffering the result,
+     * so memory stays flat regardless of the range (override with -Dpos.export.fetchSize).
+     *
+     * The same Sale instance is reused for every row; copy what you need to keep.
+     * @return the number of rows streamed
      */
-    public double getTotalSalesAmount(String startDateStr, String endDateStr) throws Exception {
-        StringBuilder sqlBuilder = new StringBuilder("SELECT SUM(total_amount) as total FROM sales WHERE 1=1");
+    public long streamSalesByDateRange(String startDateStr, String endDateStr, SaleRowHandler handler) throws Exception {
+        StringBuilder sqlBuilder = new StringBuilder(
+                "SELECT sale_id, account_id, sale_datetime, total_amount, payment_method, remarks FROM sales WHERE 1=1");
         List<Timestamp> params = new ArrayList<>();
+        appendDateRange(sqlBuilder, params, startDateStr, endDateStr);
+        sqlBuilder.append(" ORDER BY sale_datetime DESC");
 
-        if (startDateStr != null && !startDateStr.isEmpty()) {
-            sqlBuilder.append(" AND sale_datetime >= ?");
-            params.add(Timestamp.valueOf(startDateStr + " 00:00:00"));
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(Integer.getInteger("pos.export.fetchSize", Integer.MIN_VALUE));
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setTimestamp(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return new SaleRowMapper(rs).forEach(handler::onRow);
+            }
         }
-        if (endDateStr != null && !endDateStr.isEmpty()) {
-            sqlBuilder.append(" AND sale_datetime <= ?");
-            params.add(Timestamp.valueOf(endDateStr + " 23:59:59"));
+    }
+
+    // ----------------------------------------------------------------------------------
+    // KEYSET PAGING (newest first, ordered by sale_datetime DESC, sale_id DESC)
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Position of a sale in the (sale_datetime, sale_id) order; a page starts after a key.
+     */
+    public static final class SaleKey {
+        private final Timestamp saleDatetime;
+        private final int saleId;
+
+        public SaleKey(Timestamp saleDatetime, int saleId) {
+            this.saleDatetime = saleDatetime;
+            this.saleId = saleId;
         }
 
+        public static SaleKey of(Sale sale) {
+            return new SaleKey(sale.getSaleDatetime(), sale.getSaleId());
+        }
+
+        public Timestamp getSaleDatetime() {
+            return saleDatetime;
+        }
+
+        public int getSaleId() {
+            return saleId;
+        }
+    }
+
+    /**
+     * Count sales in a date range (YYYY-MM-DD, either may be empty).
+     */
+    public int countSalesByDateRange(String startDateStr, String endDateStr) throws Exception {
+        StringBuilder sqlBuilder = new StringBuilder("SELECT COUNT(*) FROM sales WHERE sale_datetime IS NOT NULL");
+        List<Timestamp> params = new ArrayList<>();
+        appendDateRange(sqlBuilder, params, startDateStr, endDateStr);
+
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
 
@@ -240,13 +500,90 @@ public class SaleDAO {
                 stmt.setTimestamp(i + 1, params.get(i));
             }
 
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Get up to {@code limit} sales in a date range that come after {@code after} in
+     * newest-first order (null for the first page). Seeks on the (sale_datetime, sale_id)
+     * index, so every page costs the same no matter how deep it is.
+     * Sales without a sale_datetime are not paged.
+     */
+    public List<Sale> getSalesPage(String startDateStr, String endDateStr, SaleKey after, int limit) throws Exception {
+        StringBuilder sqlBuilder = new StringBuilder(
+                "SELECT sale_id, account_id, sale_datetime, total_amount, payment_method, remarks FROM sales WHERE sale_datetime IS NOT NULL");
+        List<Timestamp> params = new ArrayList<>();
+        appendDateRange(sqlBuilder, params, startDateStr, endDateStr);
+        if (after != null) {
+            sqlBuilder.append(" AND (sale_datetime < ? OR (sale_datetime = ? AND sale_id < ?))");
+        }
+        sqlBuilder.append(" ORDER BY sale_datetime DESC, sale_id DESC LIMIT ?");
+
+        List<Sale> sales = new ArrayList<>(limit);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
+
+            int idx = 1;
+            for (Timestamp param : params) {
+                stmt.setTimestamp(idx++, param);
+            }
+            if (after != null) {
+                stmt.setTimestamp(idx++, after.getSaleDatetime());
+                stmt.setTimestamp(idx++, after.getSaleDatetime());
+                stmt.setInt(idx++, after.getSaleId());
+            }
+            stmt.setInt(idx, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                SaleRowMapper rows = new SaleRowMapper(rs);
+                while (rs.next()) {
+                    sales.add(rows.map());
+                }
+            }
+        }
+        return sales;
+    }
+
+    /**
+     * Key of the sale at a zero-based position in newest-first order, or null if the range
+     * has fewer rows. Used to start paging in the middle of the list (e.g. when a table is
+     * scrolled far down) without fetching the rows before it; the scan only touches the
+     * (sale_datetime, sale_id) index.
+     */
+    public SaleKey getSaleKeyAt(String startDateStr, String endDateStr, int offset) throws Exception {
+        StringBuilder sqlBuilder = new StringBuilder(
+                "SELECT sale_datetime, sale_id FROM sales WHERE sale_datetime IS NOT NULL");
+        List<Timestamp> params = new ArrayList<>();
+        appendDateRange(sqlBuilder, params, startDateStr, endDateStr);
+        sqlBuilder.append(" ORDER BY sale_datetime DESC, sale_id DESC LIMIT 1 OFFSET ?");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
+
+            int idx = 1;
+            for (Timestamp param : params) {
+                stmt.setTimestamp(idx++, param);
+            }
+            stmt.setInt(idx, offset);
+
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getDouble("total");
+                    return new SaleKey(rs.getTimestamp(1), rs.getInt(2));
                 }
             }
         }
-        return 0.0;
+        return null;
+    }
+
+    /**
+     * Get total sales amount (in cents, see Money) for a date range (YYYY-MM-DD, either may be empty).
+     * Reads the daily rollup (a few rows per day) rather than summing raw sales.
+     */
+    public long getTotalSalesCents(String startDateStr, String endDateStr) throws Exception {
+        return rollupDAO.getTotals(startDateStr, endDateStr).getTotalCents();
     }
 
     /**
@@ -262,8 +599,9 @@ public class SaleDAO {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
 
-            // 1. Get items before deleting them (CRITICAL for stock restore)
-            List<SaleItem> items = getSaleItems(saleId);
+            // 1. Get items before deleting them (CRITICAL for stock restore), locked on this
+            // transaction so a concurrent delete of the same sale cannot restore stock twice
+            List<SaleItem> items = readSaleItems(conn, saleId, true);
             if (items.isEmpty()) {
                 // If no items, proceed with simple delete
                 throw new Exception("Sale has no items or was already deleted.");
@@ -286,7 +624,10 @@ public class SaleDAO {
             itemStmt.setInt(1, saleId);
             itemStmt.executeUpdate();
 
-            // 4. Delete sale
+            // 4. Take the sale out of the daily/hourly totals while its row still exists
+            SalesRollupDAO.applySale(conn, saleId, -1);
+
+            // 5. Delete sale
             String saleSql = "DELETE FROM sales WHERE sale_id = ?";
             saleStmt = conn.prepareStatement(saleSql);
             saleStmt.setInt(1, saleId);
@@ -294,6 +635,11 @@ public class SaleDAO {
 
             conn.commit();
 
+            ProductCache cache = ProductCache.getInstance();
+            for (SaleItem item : items) {
+                cache.applyStockDelta(item.getProductId(), item.getQty());
+            }
+
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -313,4 +659,273 @@ public class SaleDAO {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Void (delete) many sales in one transaction and restore their stock, e.g. the
+     * end-of-day voids of a shift. Quantities are summed per product first, so stock is
+     * restored with one UPDATE per distinct product, sent as a single batch, whatever the
+     * number of receipts. Sales that do not exist (already voided) are skipped.
+     * @return the number of sales voided
+     */
+    public int voidSales(List<Integer> saleIds) throws Exception {
+        if (saleIds.isEmpty()) {
+            return 0;
+        }
+        String in = placeholders(saleIds.size());
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // 1. Lock the sales that still exist
+            List<Integer> found = new ArrayList<>(saleIds.size());
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT sale_id FROM sales WHERE sale_id IN (" + in + ") FOR UPDATE")) {
+                setInts(stmt, 1, saleIds);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        found.add(rs.getInt(1));
+                    }
+                }
+            }
+            if (found.isEmpty()) {
+                conn.rollback();
+                return 0;
+            }
+            in = placeholders(found.size());
+
+            // 2. Stock to give back, per product (sorted so concurrent voids lock rows in the same order)
+            Map<Integer, Integer> restoreQty = new TreeMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT product_id, SUM(qty) FROM sale_items WHERE sale_id IN (" + in + ") GROUP BY product_id FOR UPDATE")) {
+                setInts(stmt, 1, found);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        restoreQty.put(rs.getInt(1), rs.getInt(2));
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE products SET stock_qty = stock_qty + ? WHERE product_id = ?")) {
+                for (Map.Entry<Integer, Integer> e : restoreQty.entrySet()) {
+                    stmt.setInt(1, e.getValue());
+                    stmt.setInt(2, e.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            // 3. Items, rollups (while the sale rows still exist), then the sales
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM sale_items WHERE sale_id IN (" + in + ")")) {
+                setInts(stmt, 1, found);
+                stmt.executeUpdate();
+            }
+            SalesRollupDAO.applySales(conn, found, -1);
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM sales WHERE sale_id IN (" + in + ")")) {
+                setInts(stmt, 1, found);
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+
+            ProductCache cache = ProductCache.getInstance();
+            for (Map.Entry<Integer, Integer> e : restoreQty.entrySet()) {
+                cache.applyStockDelta(e.getKey(), e.getValue());
+            }
+            return found.size();
+
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * "?, ?, ?" for an IN list of {@code count} values.
+     */
+    static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    private static void setInts(PreparedStatement stmt, int firstIndex, List<Integer> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            stmt.setInt(firstIndex + i, values.get(i));
+        }
+    }
+
+    /**
+     * Adds the optional full-day date filter (YYYY-MM-DD 00:00:00 to YYYY-MM-DD 23:59:59).
+     */
+    private static void appendDateRange(StringBuilder sqlBuilder, List<Timestamp> params,
+                                        String startDateStr, String endDateStr) {
+        if (startDateStr != null && !startDateStr.isEmpty()) {
+            sqlBuilder.append(" AND sale_datetime >= ?");
+            params.add(Timestamp.valueOf(startDateStr + " 00:00:00"));
+        }
+        if (endDateStr != null && !endDateStr.isEmpty()) {
+            sqlBuilder.append(" AND sale_datetime <= ?");
+            params.add(Timestamp.valueOf(endDateStr + " 23:59:59"));
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // PROJECTIONS (only the columns a view needs)
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * A sale header without payment details or remarks (lists, charts).
+     */
+    public record SaleTotal(int saleId, Timestamp saleDatetime, long totalCents) {
+    }
+
+    public static final Projection<SaleTotal> TOTAL = Projection.of(
+            rs -> new SaleTotal(rs.getInt(1), rs.getTimestamp(2), Money.read(rs, 3)),
+            "sale_id", "sale_datetime", "total_amount");
+
+    /**
+     * A line of a sale: product, quantity and unit price (receipts, reprints).
+     */
+    public record SaleItemLine(int productId, int qty, long priceCents) {
+    }
+
+    public static final Projection<SaleItemLine> ITEM_LINE = Projection.of(
+            rs -> new SaleItemLine(rs.getInt(1), rs.getInt(2), Money.read(rs, 3)),
+            "product_id", "qty", "price");
+
+    /**
+     * Sales in a date range (either bound may be empty), newest first, as the given projection.
+     */
+    public <R> List<R> listSales(Projection<R> projection, String startDateStr, String endDateStr) throws Exception {
+        StringBuilder sqlBuilder = new StringBuilder("SELECT " + projection.columns() + " FROM sales WHERE 1=1");
+        List<Timestamp> params = new ArrayList<>();
+        appendDateRange(sqlBuilder, params, startDateStr, endDateStr);
+        sqlBuilder.append(" ORDER BY sale_datetime DESC, sale_id DESC");
+
+        List<R> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setTimestamp(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(projection.read(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * A sale's items in entry order, as the given projection.
+     */
+    public <R> List<R> listSaleItems(int saleId, Projection<R> projection) throws Exception {
+        String sql = "SELECT " + projection.columns() + " FROM sale_items WHERE sale_id = ? ORDER BY sale_item_id";
+        List<R> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, saleId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(projection.read(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // ROW MAPPING
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * sales row -> Sale (without items), by column index.
+     */
+    private static final class SaleRowMapper extends RowMapper<Sale> {
+        private final int saleId, accountId, saleDatetime, totalAmount, paymentMethod, remarks;
+
+        SaleRowMapper(ResultSet rs) throws SQLException {
+            super(rs);
+            saleId = column("sale_id");
+            accountId = column("account_id");
+            saleDatetime = column("sale_datetime");
+            totalAmount = column("total_amount");
+            paymentMethod = column("payment_method");
+            remarks = column("remarks");
+        }
+
+        @Override
+        protected Sale newRow() {
+            return new Sale();
+        }
+
+        @Override
+        protected void fill(Sale sale) throws SQLException {
+            sale.setSaleId(rs.getInt(saleId));
+            sale.setAccountId(rs.getInt(accountId));
+            sale.setSaleDatetime(rs.getTimestamp(saleDatetime));
+            sale.setTotalCents(Money.read(rs, totalAmount));
+            sale.setPaymentMethod(rs.getString(paymentMethod));
+            sale.setRemarks(rs.getString(remarks));
+        }
+    }
+
+    /**
+     * sale_items row -> SaleItem, by column index.
+     */
+    private static final class SaleItemRowMapper extends RowMapper<SaleItem> {
+        private final int saleItemId, saleId, productId, qty, price;
+
+        SaleItemRowMapper(ResultSet rs) throws SQLException {
+            super(rs);
+            saleItemId = column("sale_item_id");
+            saleId = column("sale_id");
+            productId = column("product_id");
+            qty = column("qty");
+            price = column("price");
+        }
+
+        int saleId() throws SQLException {
+            return rs.getInt(saleId);
+        }
+
+        /**
+         * False on the all-NULL row an outer join gives a sale without items.
+         */
+        boolean hasItem() throws SQLException {
+            rs.getInt(saleItemId);
+            return !rs.wasNull();
+        }
+
+        @Override
+        protected SaleItem newRow() {
+            return new SaleItem();
+        }
+
+        @Override
+        protected void fill(SaleItem item) throws SQLException {
+            item.setSaleItemId(rs.getInt(saleItemId));
+            item.setSaleId(rs.getInt(saleId));
+            item.setProductId(rs.getInt(productId));
+            item.setQty(rs.getInt(qty));
+            item.setPriceCents(Money.read(rs, price));
+        }
+    }
+}
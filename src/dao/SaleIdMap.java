@@ -0,0 +1,86 @@
+package dao;
+
+import models.Sale;
+
+/**
+ * Open-addressing hash map from sale_id to Sale, used to attach items to their sales when
+ * a range of sales is loaded in bulk. Keys are plain ints (no Integer boxing per item row);
+ * sale IDs are positive, so 0 marks an empty slot.
+ *
+ * Not thread-safe; lives only for one load.
+ */
+class SaleIdMap {
+
+    private int[] keys;
+    private Sale[] values;
+    private int size;
+    private int mask;
+
+    SaleIdMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1; // load <= 0.5
+        allocate(capacity);
+    }
+
+    void put(int saleId, Sale sale) {
+        if (saleId <= 0) {
+            throw new IllegalArgumentException("sale_id must be positive: " + saleId);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = slotFor(saleId);
+        if (keys[slot] == 0) {
+            keys[slot] = saleId;
+            size++;
+        }
+        values[slot] = sale;
+    }
+
+    /**
+     * @return the sale, or null if the ID was not put
+     */
+    Sale get(int saleId) {
+        int slot = slotFor(saleId);
+        return keys[slot] == saleId ? values[slot] : null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Slot holding {@code saleId}, or the empty slot where it would go.
+     */
+    private int slotFor(int saleId) {
+        int slot = mix(saleId) & mask;
+        while (keys[slot] != 0 && keys[slot] != saleId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Sale[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Sale[capacity];
+        mask = capacity - 1;
+    }
+
+    // Sequential IDs would otherwise fill neighbouring slots in long runs
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
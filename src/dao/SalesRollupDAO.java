@@ -0,0 +1,241 @@
+package dao;
+
+import db.DatabaseConnection;
+import models.Money;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-aggregated sales totals (sales_daily_rollup and sales_hourly_rollup), keyed by day,
+ * hour and payment method.
+ *
+ * SaleDAO keeps both tables current in the same transaction that writes or deletes a sale,
+ * so report totals can read a few hundred rollup rows instead of scanning sales.
+ * {@link #rebuild} backfills them from the sales table (see tools.RebuildSalesRollup).
+ */
+public class SalesRollupDAO {
+
+    // Sales with no payment method are grouped under '' (part of the primary key)
+    private static final String DAILY_APPLY_SQL =
+            "INSERT INTO sales_daily_rollup (sale_date, payment_method, sale_count, total_amount) " +
+            "SELECT DATE(sale_datetime), COALESCE(payment_method, ''), ?, ? * total_amount " +
+            "FROM sales WHERE sale_id = ? AND sale_datetime IS NOT NULL " +
+            "ON DUPLICATE KEY UPDATE sale_count = sale_count + VALUES(sale_count), " +
+            "total_amount = total_amount + VALUES(total_amount)";
+
+    private static final String HOURLY_APPLY_SQL =
+            "INSERT INTO sales_hourly_rollup (sale_date, sale_hour, payment_method, sale_count, total_amount) " +
+            "SELECT DATE(sale_datetime), HOUR(sale_datetime), COALESCE(payment_method, ''), ?, ? * total_amount " +
+            "FROM sales WHERE sale_id = ? AND sale_datetime IS NOT NULL " +
+            "ON DUPLICATE KEY UPDATE sale_count = sale_count + VALUES(sale_count), " +
+            "total_amount = total_amount + VALUES(total_amount)";
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) a sale's count and total in both rollups, reading
+     * the sale row itself so the day and hour match what was stored. Runs on the caller's
+     * connection/transaction; for removal call it before the sale row is deleted.
+     *
+     * The rollup row for the current hour is shared by every terminal, so this is done as
+     * the last write of a sale to keep its row lock short.
+     */
+    static void applySale(Connection conn, int saleId, int sign) throws SQLException {
+        try (PreparedStatement daily = conn.prepareStatement(DAILY_APPLY_SQL);
+             PreparedStatement hourly = conn.prepareStatement(HOURLY_APPLY_SQL)) {
+            for (PreparedStatement stmt : new PreparedStatement[]{daily, hourly}) {
+                stmt.setInt(1, sign);
+                stmt.setInt(2, sign);
+                stmt.setInt(3, saleId);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * {@link #applySale} for many sales at once: one grouped statement per rollup table
+     * instead of two per sale. Same rules (caller's transaction, before rows are deleted).
+     */
+    static void applySales(Connection conn, List<Integer> saleIds, int sign) throws SQLException {
+        String in = SaleDAO.placeholders(saleIds.size());
+        String dailySql = "INSERT INTO sales_daily_rollup (sale_date, payment_method, sale_count, total_amount) " +
+                "SELECT DATE(sale_datetime), COALESCE(payment_method, ''), ? * COUNT(*), ? * SUM(total_amount) " +
+                "FROM sales WHERE sale_id IN (" + in + ") AND sale_datetime IS NOT NULL " +
+                "GROUP BY DATE(sale_datetime), COALESCE(payment_method, '') " +
+                "ON DUPLICATE KEY UPDATE sale_count = sale_count + VALUES(sale_count), " +
+                "total_amount = total_amount + VALUES(total_amount)";
+        String hourlySql = "INSERT INTO sales_hourly_rollup (sale_date, sale_hour, payment_method, sale_count, total_amount) " +
+                "SELECT DATE(sale_datetime), HOUR(sale_datetime), COALESCE(payment_method, ''), ? * COUNT(*), ? * SUM(total_amount) " +
+                "FROM sales WHERE sale_id IN (" + in + ") AND sale_datetime IS NOT NULL " +
+                "GROUP BY DATE(sale_datetime), HOUR(sale_datetime), COALESCE(payment_method, '') " +
+                "ON DUPLICATE KEY UPDATE sale_count = sale_count + VALUES(sale_count), " +
+                "total_amount = total_amount + VALUES(total_amount)";
+
+        try (PreparedStatement daily = conn.prepareStatement(dailySql);
+             PreparedStatement hourly = conn.prepareStatement(hourlySql)) {
+            for (PreparedStatement stmt : new PreparedStatement[]{daily, hourly}) {
+                stmt.setInt(1, sign);
+                stmt.setInt(2, sign);
+                for (int i = 0; i < saleIds.size(); i++) {
+                    stmt.setInt(3 + i, saleIds.get(i));
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // READS
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Sale count and total for a date range (YYYY-MM-DD, either may be empty).
+     */
+    public static final class Totals {
+        private final int saleCount;
+        private final long totalCents;
+
+        Totals(int saleCount, long totalCents) {
+            this.saleCount = saleCount;
+            this.totalCents = totalCents;
+        }
+
+        public int getSaleCount() {
+            return saleCount;
+        }
+
+        public long getTotalCents() {
+            return totalCents;
+        }
+    }
+
+    public Totals getTotals(String startDateStr, String endDateStr) throws Exception {
+        StringBuilder sqlBuilder = new StringBuilder(
+                "SELECT COALESCE(SUM(sale_count), 0), COALESCE(SUM(total_amount), 0) FROM sales_daily_rollup WHERE 1=1");
+        List<Date> params = new ArrayList<>();
+        appendDayRange(sqlBuilder, params, startDateStr, endDateStr);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setDate(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Totals(rs.getInt(1), Money.read(rs, 2));
+                }
+            }
+        }
+        return new Totals(0, 0);
+    }
+
+    /**
+     * Sales total in cents per hour of one day (YYYY-MM-DD), all payment methods; index = hour.
+     */
+    public long[] getHourlyTotals(String dateStr) throws Exception {
+        long[] totals = new long[24];
+        String sql = "SELECT sale_hour, SUM(total_amount) FROM sales_hourly_rollup WHERE sale_date = ? GROUP BY sale_hour";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(dateStr));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals[rs.getInt(1)] = Money.read(rs, 2);
+                }
+            }
+        }
+        return totals;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // REBUILD
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Recompute both rollups from the sales table for a date range (YYYY-MM-DD, either may
+     * be empty for open-ended), in one transaction. Meant for backfilling and repairs while
+     * no sales are being rung up; a sale committed during the rebuild may be counted twice.
+     * @return number of daily rollup rows written
+     */
+    public int rebuild(String startDateStr, String endDateStr) throws Exception {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            List<Date> params = new ArrayList<>();
+            StringBuilder range = new StringBuilder();
+            appendDayRange(range, params, startDateStr, endDateStr);
+            // Same days on the sales side, written so the sale_datetime index can be used
+            String saleRange = range.toString()
+                    .replace("sale_date >= ?", "sale_datetime >= ?")
+                    .replace("sale_date <= ?", "sale_datetime < DATE_ADD(?, INTERVAL 1 DAY)");
+
+            executeWithDates(conn, "DELETE FROM sales_daily_rollup WHERE 1=1" + range, params);
+            executeWithDates(conn, "DELETE FROM sales_hourly_rollup WHERE 1=1" + range, params);
+
+            int dailyRows = executeWithDates(conn,
+                    "INSERT INTO sales_daily_rollup (sale_date, payment_method, sale_count, total_amount) " +
+                    "SELECT DATE(sale_datetime), COALESCE(payment_method, ''), COUNT(*), SUM(total_amount) " +
+                    "FROM sales WHERE sale_datetime IS NOT NULL" + saleRange +
+                    " GROUP BY DATE(sale_datetime), COALESCE(payment_method, '')", params);
+            executeWithDates(conn,
+                    "INSERT INTO sales_hourly_rollup (sale_date, sale_hour, payment_method, sale_count, total_amount) " +
+                    "SELECT DATE(sale_datetime), HOUR(sale_datetime), COALESCE(payment_method, ''), COUNT(*), SUM(total_amount) " +
+                    "FROM sales WHERE sale_datetime IS NOT NULL" + saleRange +
+                    " GROUP BY DATE(sale_datetime), HOUR(sale_datetime), COALESCE(payment_method, '')", params);
+
+            conn.commit();
+            return dailyRows;
+
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    private static int executeWithDates(Connection conn, String sql, List<Date> params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setDate(i + 1, params.get(i));
+            }
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds the optional inclusive day filter on sale_date.
+     */
+    private static void appendDayRange(StringBuilder sqlBuilder, List<Date> params,
+                                       String startDateStr, String endDateStr) {
+        if (startDateStr != null && !startDateStr.isEmpty()) {
+            sqlBuilder.append(" AND sale_date >= ?");
+            params.add(Date.valueOf(startDateStr));
+        }
+        if (endDateStr != null && !endDateStr.isEmpty()) {
+            sqlBuilder.append(" AND sale_date <= ?");
+            params.add(Date.valueOf(endDateStr));
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package dao;
+
+import models.Account;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Short-lived, in-memory sessions on top of AccountDAO.login, so unlocking or switching a
+ * terminal does not pay for a database round trip and a BCrypt check every time.
+ *
+ * The first login of a user goes through AccountDAO (BCrypt). It returns a {@link Session}
+ * whose token is HMAC-SHA256 signed with a key that only lives in this process, and
+ * remembers an HMAC of the password (and optionally a PIN). Until the session expires
+ * (pos.session.ttlMinutes, default 15), logging in again with the same password, unlocking
+ * with the PIN, or validating the token is a few microseconds of hashing. A wrong password
+ * falls back to the full BCrypt login, so the fast path does not make guessing cheaper;
+ * a PIN is dropped after pos.session.maxPinAttempts (default 5) misses. LoginWindow logs in
+ * through here; the dashboard's Lock action sets the PIN and unlocks with it (ui.LockDialog).
+ *
+ * At most pos.session.maxEntries (default 64) users are remembered, least recently used
+ * first out. AccountDAO.updateAccount and deleteAccount revoke the user's session. Changes
+ * made on other terminals are only seen once the session expires.
+ */
+public class SessionManager {
+
+    /**
+     * An authenticated user and a token that proves it until it expires.
+     */
+    public static final class Session {
+        private final String token;
+        private final Account account;
+        private final long expiresAtMillis;
+
+        Session(String token, Account account, long expiresAtMillis) {
+            this.token = token;
+            this.account = account;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getToken() { return token; }
+        public Account getAccount() { return account; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    private static final String HMAC = "HmacSHA256";
+    private static volatile SessionManager instance;
+
+    private final long ttlMillis = Long.getLong("pos.session.ttlMinutes", 15L) * 60_000L;
+    private final int maxEntries = Integer.getInteger("pos.session.maxEntries", 64);
+    private final int maxPinAttempts = Integer.getInteger("pos.session.maxPinAttempts", 5);
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final SecureRandom random = new SecureRandom();
+    private final AccountDAO accountDAO = new AccountDAO();
+
+    // username -> entry, in access order for LRU eviction
+    private final LinkedHashMap<String, Entry> byUsername = new LinkedHashMap<>(16, 0.75f, true);
+    private long nextGeneration = 1;
+
+    private SessionManager() {
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        key = new SecretKeySpec(secret, HMAC);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(HMAC + " not available", e);
+            }
+        });
+    }
+
+    public static SessionManager getInstance() {
+        SessionManager m = instance;
+        if (m == null) {
+            synchronized (SessionManager.class) {
+                m = instance;
+                if (m == null) {
+                    m = new SessionManager();
+                    instance = m;
+                }
+            }
+        }
+        return m;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // AUTHENTICATION
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Log in with a password: from the session cache if this user logged in with the same
+     * password recently, otherwise via AccountDAO.login (BCrypt).
+     * @return the session, or null if the username or password is wrong
+     */
+    public Session login(String username, String password) throws Exception {
+        Session fast = loginFromCache(username, password);
+        if (fast != null) {
+            return fast;
+        }
+        Account acc = accountDAO.login(username, password);
+        return acc != null ? open(acc, password) : null;
+    }
+
+    /**
+     * {@link #login} for the UI: completes at once on a cache hit, otherwise runs on
+     * PasswordUtil's verification pool (see AccountDAO.loginAsync).
+     */
+    public CompletableFuture<Session> loginAsync(String username, String password) {
+        Session fast = loginFromCache(username, password);
+        if (fast != null) {
+            return CompletableFuture.completedFuture(fast);
+        }
+        return accountDAO.loginAsync(username, password)
+                .thenApply(acc -> acc != null ? open(acc, password) : null);
+    }
+
+    /**
+     * Unlock with the PIN set for this user's current session.
+     * @return the session, or null if there is no live session, no PIN, or the PIN is wrong
+     */
+    public synchronized Session unlockWithPin(String username, String pin) {
+        Entry e = liveEntry(username);
+        if (e == null || e.pinMac == null) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(e.pinMac, mac("pin", e.generation, pin))) {
+            if (++e.pinFailures >= maxPinAttempts) {
+                e.pinMac = null; // Full password login needed from now on
+            }
+            return null;
+        }
+        e.pinFailures = 0;
+        return newSession(e);
+    }
+
+    /**
+     * Set a PIN for quick unlock, for the user the token belongs to.
+     * @return false if the token is not valid
+     */
+    public synchronized boolean setPin(String token, String pin) {
+        Entry e = entryForToken(token);
+        if (e == null) {
+            return false;
+        }
+        e.pinMac = mac("pin", e.generation, pin);
+        e.pinFailures = 0;
+        return true;
+    }
+
+    /**
+     * @return the token's account, or null if the token is forged, expired or revoked
+     */
+    public synchronized Account validate(String token) {
+        Entry e = entryForToken(token);
+        return e != null ? copy(e.account) : null;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // REVOCATION
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * End every session of an account; its tokens stop validating at once.
+     */
+    public synchronized void revoke(int accountId) {
+        byUsername.values().removeIf(e -> e.account.getAccountId() == accountId);
+    }
+
+    public synchronized void revokeAll() {
+        byUsername.clear();
+    }
+
+    // ----------------------------------------------------------------------------------
+    // INTERNALS
+    // ----------------------------------------------------------------------------------
+
+    private synchronized Session loginFromCache(String username, String password) {
+        Entry e = liveEntry(username);
+        if (e == null || !MessageDigest.isEqual(e.passwordMac, mac("password", e.generation, password))) {
+            return null;
+        }
+        return newSession(e);
+    }
+
+    /**
+     * Remember a BCrypt-verified login, replacing any earlier session of the user.
+     */
+    private synchronized Session open(Account account, String password) {
+        Entry e = new Entry();
+        e.account = copy(account);
+        e.generation = nextGeneration++;
+        e.expiresAtMillis = System.currentTimeMillis() + ttlMillis;
+        e.passwordMac = mac("password", e.generation, password);
+        byUsername.put(account.getUsername(), e);
+
+        Iterator<Entry> eldest = byUsername.values().iterator();
+        while (byUsername.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+        }
+        return newSession(e);
+    }
+
+    private Entry liveEntry(String username) {
+        Entry e = byUsername.get(username);
+        if (e != null && System.currentTimeMillis() >= e.expiresAtMillis) {
+            byUsername.remove(username);
+            return null;
+        }
+        return e;
+    }
+
+    /**
+     * Token: base64url(generation, expiresAt, username) "." base64url(HMAC of the first part)
+     */
+    private Session newSession(Entry e) {
+        byte[] user = e.account.getUsername().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(16 + user.length)
+                .putLong(e.generation).putLong(e.expiresAtMillis).put(user).array();
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String body = b64.encodeToString(payload);
+        String token = body + "." + b64.encodeToString(macs.get().doFinal(body.getBytes(StandardCharsets.US_ASCII)));
+        return new Session(token, copy(e.account), e.expiresAtMillis);
+    }
+
+    private Entry entryForToken(String token) {
+        int dot = token != null ? token.indexOf('.') : -1;
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            String body = token.substring(0, dot);
+            byte[] sig = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sig, macs.get().doFinal(body.getBytes(StandardCharsets.US_ASCII)))) {
+                return null;
+            }
+            ByteBuffer payload = ByteBuffer.wrap(Base64.getUrlDecoder().decode(body));
+            long generation = payload.getLong();
+            long expiresAt = payload.getLong();
+            byte[] user = new byte[payload.remaining()];
+            payload.get(user);
+
+            Entry e = liveEntry(new String(user, StandardCharsets.UTF_8));
+            // Generation changes on every new login and disappears on revoke
+            return e != null && e.generation == generation && System.currentTimeMillis() < expiresAt ? e : null;
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return null; // Not one of our tokens
+        }
+    }
+
+    private byte[] mac(String purpose, long generation, String secret) {
+        Mac mac = macs.get();
+        mac.update(purpose.getBytes(StandardCharsets.US_ASCII));
+        mac.update(ByteBuffer.allocate(8).putLong(generation).array());
+        return mac.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Account copy(Account src) {
+        Account a = new Account();
+        a.setAccountId(src.getAccountId());
+        a.setUsername(src.getUsername());
+        a.setRole(src.getRole());
+        a.setFirstName(src.getFirstName());
+        a.setLastName(src.getLastName());
+        a.setCreatedAt(src.getCreatedAt());
+        return a;
+    }
+
+    private static final class Entry {
+        Account account;
+        long generation;
+        long expiresAtMillis;
+        byte[] passwordMac;
+        byte[] pinMac;
+        int pinFailures;
+    }
+}
@@ -0,0 +1,183 @@
+package dao;
+
+import models.Product;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open-addressing hash index from SKU to Product for the checkout scan path.
+ *
+ * Lookups take any CharSequence (e.g. a javax.swing.text.Segment over the scan field's
+ * document), hash it with the same function as String.hashCode() and compare characters
+ * in place, so a scan never allocates a String or goes to the database when the SKU is
+ * already known. Unknown SKUs fall back to ProductDAO.getProductBySku and are added.
+ *
+ * Not thread-safe; meant to be owned by one window and used on the EDT.
+ */
+public class SkuIndex {
+
+    private String[] keys;
+    private Product[] values;
+    // true when the SKU in this slot is a strict prefix of another SKU (e.g. "SKU1" vs "SKU12")
+    private boolean[] prefixOfOther;
+    private int size;
+    private int mask;
+
+    private final ProductDAO dao;
+
+    private SkuIndex(ProductDAO dao, int expected) {
+        this.dao = dao;
+        allocate(tableSizeFor(expected));
+    }
+
+    /**
+     * Builds the index from the current catalog.
+     */
+    public static SkuIndex build(ProductDAO dao) throws Exception {
+        List<Product> products = dao.getAllProducts();
+        SkuIndex index = new SkuIndex(dao, products.size());
+        for (Product p : products) {
+            if (p.getSku() != null && !p.getSku().isEmpty()) {
+                index.insert(p.getSku(), p);
+            }
+        }
+        index.markPrefixes();
+        return index;
+    }
+
+    /**
+     * Resolves the SKU in {@code text[from, to)}. Returns null when the SKU is unknown
+     * to both the index and the database.
+     */
+    public Product lookup(CharSequence text, int from, int to) throws Exception {
+        int slot = find(text, from, to);
+        if (slot >= 0) {
+            return values[slot];
+        }
+        // Slow path: product may have been added after the index was built
+        Product p = dao.getProductBySku(text.subSequence(from, to).toString());
+        if (p != null) {
+            insert(p.getSku(), p);
+            markPrefixes();
+        }
+        return p;
+    }
+
+    public Product lookup(CharSequence text) throws Exception {
+        return lookup(text, 0, text.length());
+    }
+
+    /**
+     * True when {@code text[from, to)} is a known SKU that no other SKU starts with,
+     * i.e. it is safe to auto-submit without waiting for more input.
+     */
+    public boolean isCompleteMatch(CharSequence text, int from, int to) {
+        int slot = find(text, from, to);
+        return slot >= 0 && !prefixOfOther[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // HASH TABLE
+    // ----------------------------------------------------------------------------------
+
+    private int find(CharSequence text, int from, int to) {
+        int len = to - from;
+        if (len <= 0) {
+            return -1;
+        }
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        for (int slot = spread(h) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key.length() == len && key.hashCode() == h && regionEquals(key, text, from, len)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(String key, Product value) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = spread(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        Product[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new Product[capacity];
+        prefixOfOther = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Flags SKUs that are a prefix of another SKU. After sorting, such a key is always
+     * directly followed by a key that starts with it.
+     */
+    private void markPrefixes() {
+        String[] sorted = new String[size];
+        int n = 0;
+        for (String k : keys) {
+            if (k != null) {
+                sorted[n++] = k;
+            }
+        }
+        Arrays.sort(sorted);
+        Arrays.fill(prefixOfOther, false);
+        for (int i = 0; i + 1 < n; i++) {
+            if (sorted[i + 1].startsWith(sorted[i])) {
+                prefixOfOther[find(sorted[i], 0, sorted[i].length())] = true;
+            }
+        }
+    }
+
+    private static boolean regionEquals(String key, CharSequence text, int from, int len) {
+        for (int i = 0; i < len; i++) {
+            if (key.charAt(i) != text.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expected) {
+        int cap = 16;
+        while (cap < expected * 2) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+}
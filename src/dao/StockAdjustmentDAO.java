@@ -30,5 +30,6 @@ public class StockAdjustmentDAO {
 
             conn.commit();
         }
+        ProductCache.getInstance().applyStockDelta(adj.getProductId(), adj.getQtyChange());
     }
 }
@@ -0,0 +1,528 @@
+package db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small JDBC connection pool exposed as a {@link DataSource}.
+ *
+ * Physical connections are kept open and handed out wrapped in a proxy whose close()
+ * returns the connection to the pool instead of closing the socket. The pool keeps at
+ * least {@code minSize} connections warm, never opens more than {@code maxSize}, evicts
+ * connections that sit idle for too long, validates connections on borrow and reports
+ * connections that are held longer than the leak threshold (counted in {@link Stats} and
+ * logged). Where a leaked connection was borrowed is only recorded when leak tracing is
+ * turned on, since capturing a stack trace on every borrow is too slow for checkout.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long validateAfterIdleMillis;
+    private final long leakThresholdMillis;
+    private final boolean traceLeaks;
+
+    // Idle connections, most recently returned first (LIFO keeps the hot set small)
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // --- Metrics ---
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private ConnectionPool(Builder b) {
+        this.url = b.url;
+        this.user = b.user;
+        this.password = b.password;
+        this.minSize = b.minSize;
+        this.maxSize = b.maxSize;
+        this.maxWaitMillis = b.maxWaitMillis;
+        this.idleTimeoutMillis = b.idleTimeoutMillis;
+        this.validateAfterIdleMillis = b.validateAfterIdleMillis;
+        this.leakThresholdMillis = b.leakThresholdMillis;
+        this.traceLeaks = b.traceLeaks && b.leakThresholdMillis > 0;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, 30_000) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+        fillToMinimum();
+    }
+
+    public static Builder builder(String url, String user, String password) {
+        return new Builder(url, user, password);
+    }
+
+    // ----------------------------------------------------------------------------------
+    // BORROW / RETURN
+    // ----------------------------------------------------------------------------------
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new PoolTimeoutException("Timed out after " + maxWaitMillis
+                        + " ms waiting for a database connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pc = takeIdleOrCreate();
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowTrace = traceLeaks ? new Throwable("Connection borrowed here") : null;
+            pc.leakReported = false;
+            borrowed.add(pc);
+            borrowCount.incrementAndGet();
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the configured credentials");
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (isUsable(pc)) {
+                return pc;
+            }
+            destroy(pc);
+        }
+        return create();
+    }
+
+    /**
+     * Validation on borrow. A connection that was used very recently is trusted as-is so a
+     * busy checkout does not pay for an extra ping on every statement.
+     */
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pc.lastReturnedAt < validateAfterIdleMillis) {
+                return true;
+            }
+            return pc.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        borrowed.remove(pc);
+        try {
+            pc.closeOpenStatements();
+            if (closed || pc.physical.isClosed()) {
+                destroy(pc);
+                return;
+            }
+            // Hand the connection back in the same state every DAO expects to find it
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            pc.physical.clearWarnings();
+            pc.lastReturnedAt = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // PHYSICAL CONNECTIONS
+    // ----------------------------------------------------------------------------------
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pc) {
+        destroyedCount.incrementAndGet();
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away anyway
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && idle.size() + borrowed.size() < minSize) {
+            try {
+                PooledConnection pc = create();
+                pc.lastReturnedAt = System.currentTimeMillis();
+                idle.offerLast(pc);
+            } catch (SQLException e) {
+                // Database not reachable yet; borrowers will get the real error
+                return;
+            }
+        }
+    }
+
+    /**
+     * Periodic task: evicts idle connections past the idle timeout, refills to the
+     * minimum size and reports borrowed connections that look leaked.
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            Iterator<PooledConnection> it = idle.descendingIterator(); // oldest first
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                if (idle.size() + borrowed.size() <= minSize) {
+                    break;
+                }
+                if (now - pc.lastReturnedAt > idleTimeoutMillis && idle.remove(pc)) {
+                    destroy(pc);
+                }
+            }
+
+            fillToMinimum();
+
+            if (leakThresholdMillis > 0) {
+                for (PooledConnection pc : borrowed) {
+                    if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMillis) {
+                        pc.leakReported = true;
+                        leakCount.incrementAndGet();
+                        LOG.log(Level.WARNING, "Possible connection leak: connection held for "
+                                + (now - pc.borrowedAt) + " ms" + (traceLeaks ? "" : " (enable leak tracing to see where)"),
+                                pc.borrowTrace);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeper. Borrowed connections are
+     * closed as they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // METRICS
+    // ----------------------------------------------------------------------------------
+
+    public Stats getStats() {
+        long borrows = borrowCount.get();
+        return new Stats(
+                borrowed.size(),
+                idle.size(),
+                waiting.get(),
+                borrows,
+                borrows == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / borrows,
+                maxWaitNanos.get() / 1_000_000.0,
+                createdCount.get(),
+                destroyedCount.get(),
+                timeoutCount.get(),
+                leakCount.get());
+    }
+
+    /**
+     * Point-in-time snapshot of the pool counters.
+     */
+    public static final class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final long borrows;
+        private final double avgWaitMillis;
+        private final double maxWaitMillis;
+        private final long created;
+        private final long destroyed;
+        private final long timeouts;
+        private final long leaks;
+
+        Stats(int active, int idle, int waiting, long borrows, double avgWaitMillis, double maxWaitMillis,
+              long created, long destroyed, long timeouts, long leaks) {
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.borrows = borrows;
+            this.avgWaitMillis = avgWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.timeouts = timeouts;
+            this.leaks = leaks;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public long getBorrows() { return borrows; }
+        public double getAvgWaitMillis() { return avgWaitMillis; }
+        public double getMaxWaitMillis() { return maxWaitMillis; }
+        public long getCreated() { return created; }
+        public long getDestroyed() { return destroyed; }
+        public long getTimeouts() { return timeouts; }
+        public long getLeaks() { return leaks; }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d, idle=%d, waiting=%d, borrows=%d, avgWait=%.3fms, maxWait=%.3fms, "
+                            + "created=%d, destroyed=%d, timeouts=%d, leaks=%d",
+                    active, idle, waiting, borrows, avgWaitMillis, maxWaitMillis, created, destroyed, timeouts, leaks);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // POOLED CONNECTION + PROXY HANDLE
+    // ----------------------------------------------------------------------------------
+
+    private final class PooledConnection {
+        final Connection physical;
+        final List<Statement> openStatements = new ArrayList<>();
+        volatile long lastReturnedAt;
+        volatile long borrowedAt;
+        volatile Throwable borrowTrace;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+
+        /**
+         * Closes statements the caller forgot to close so they do not pile up on the
+         * physical connection across borrows.
+         */
+        void closeOpenStatements() {
+            for (Statement s : openStatements) {
+                try {
+                    s.close();
+                } catch (SQLException ignored) {
+                    // Best effort
+                }
+            }
+            openStatements.clear();
+        }
+    }
+
+    /**
+     * One handle per borrow, so a stale reference closed twice cannot return the
+     * connection to the pool while someone else is using it.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean handleClosed;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pc.physical + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (handleClosed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            try {
+                Object result = method.invoke(pc.physical, args);
+                if (result instanceof Statement) {
+                    pc.openStatements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // DataSource boilerplate
+    // ----------------------------------------------------------------------------------
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // Not used
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    // ----------------------------------------------------------------------------------
+    // BUILDER
+    // ----------------------------------------------------------------------------------
+
+    public static final class Builder {
+        private final String url;
+        private final String user;
+        private final String password;
+        private int minSize = 2;
+        private int maxSize = 10;
+        private long maxWaitMillis = 5_000;
+        private long idleTimeoutMillis = 5 * 60_000;
+        private long validateAfterIdleMillis = 500;
+        private long leakThresholdMillis = 30_000;
+        private boolean traceLeaks;
+
+        private Builder(String url, String user, String password) {
+            this.url = url;
+            this.user = user;
+            this.password = password;
+        }
+
+        public Builder minSize(int minSize) { this.minSize = minSize; return this; }
+        public Builder maxSize(int maxSize) { this.maxSize = maxSize; return this; }
+        public Builder maxWaitMillis(long millis) { this.maxWaitMillis = millis; return this; }
+        public Builder idleTimeoutMillis(long millis) { this.idleTimeoutMillis = millis; return this; }
+        public Builder validateAfterIdleMillis(long millis) { this.validateAfterIdleMillis = millis; return this; }
+        /** 0 disables leak detection. */
+        public Builder leakThresholdMillis(long millis) { this.leakThresholdMillis = millis; return this; }
+        /** Record a stack trace on every borrow so leak reports show where (slow; off by default). */
+        public Builder traceLeaks(boolean traceLeaks) { this.traceLeaks = traceLeaks; return this; }
+
+        public ConnectionPool build() {
+            if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+                throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+            }
+            return new ConnectionPool(this);
+        }
+    }
+}
@@ -1,20 +1,160 @@
 package db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Entry point for database access. Connections come from a shared {@link ConnectionPool},
+ * so callers keep using try-with-resources and close() simply returns the connection.
+ *
+ * Settings can be overridden with system properties, e.g.
+ * -Dpos.db.url=... -Dpos.db.pool.maxSize=20
+ * Add -Dpos.db.pool.traceLeaks=true to log where leaked connections were borrowed.
+ *
+ * MySQL URLs get the {@link #TUNED_PROPERTIES} driver profile unless -Dpos.db.tuning=off.
+ * Any single Connector/J property can be set or overridden with -Dpos.db.jdbc.NAME=VALUE;
+ * properties already present in the URL always win.
+ */
 public class DatabaseConnection {
     private static final String URL = "jdbc:mysql://localhost:3306/pos_system?useSSL=false&serverTimezone=UTC";
     private static final String USER = "root";
     private static final String PASSWORD = "";
 
+    private static final String JDBC_PROPERTY_PREFIX = "pos.db.jdbc.";
+
+    /**
+     * Connector/J settings for the checkout path. rewriteBatchedStatements turns the
+     * sale_items batch into one multi-row INSERT and the stock UPDATE batch into one
+     * multi-statement round trip, so a cart commits in the same number of round trips
+     * whatever its size. Statements stay client-side prepared (parsed once, cached per
+     * connection): server-side prepared statements would send the UPDATE batch one
+     * execution at a time.
+     */
+    public static final Map<String, String> TUNED_PROPERTIES;
+    static {
+        Map<String, String> m = new LinkedHashMap<>();
+        m.put("rewriteBatchedStatements", "true");
+        m.put("cachePrepStmts", "true");
+        m.put("prepStmtCacheSize", "250");
+        m.put("prepStmtCacheSqlLimit", "2048");
+        m.put("useServerPrepStmts", "false");
+        m.put("useLocalSessionState", "true");      // No round trip for redundant setAutoCommit/isReadOnly
+        m.put("useLocalTransactionState", "true");  // Skip commit/rollback when nothing was sent
+        m.put("cacheServerConfiguration", "true");  // One SHOW VARIABLES per pool, not per connection
+        m.put("cacheResultSetMetadata", "true");
+        m.put("maintainTimeStats", "false");
+        TUNED_PROPERTIES = Collections.unmodifiableMap(m);
+    }
+
+    private static volatile ConnectionPool pool;
+
     public static Connection getConnection() throws SQLException {
+        return getDataSource().getConnection();
+    }
+
+    /**
+     * Returns the process-wide pool, creating it on first use.
+     */
+    public static ConnectionPool getDataSource() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    p = createPool();
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Current pool metrics (active/idle connections, wait times, leaks).
+     */
+    public static ConnectionPool.Stats getPoolStats() throws SQLException {
+        return getDataSource().getStats();
+    }
+
+    /**
+     * Closes the pool. The next getConnection() call starts a new one.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static ConnectionPool createPool() throws SQLException {
+        // Explicitly load driver (overridable with pos.db.driver)
+        String driver = System.getProperty("pos.db.driver", "com.mysql.cj.jdbc.Driver");
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver"); // Explicitly load driver
+            Class.forName(driver);
         } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL Driver not found", e);
+            throw new SQLException("JDBC driver not found: " + driver, e);
+        }
+
+        ConnectionPool p = ConnectionPool.builder(
+                        jdbcUrl(),
+                        System.getProperty("pos.db.user", USER),
+                        System.getProperty("pos.db.password", PASSWORD))
+                .minSize(Integer.getInteger("pos.db.pool.minSize", 2))
+                .maxSize(Integer.getInteger("pos.db.pool.maxSize", 10))
+                .maxWaitMillis(Long.getLong("pos.db.pool.maxWaitMillis", 5_000L))
+                .idleTimeoutMillis(Long.getLong("pos.db.pool.idleTimeoutMillis", 5 * 60_000L))
+                .validateAfterIdleMillis(Long.getLong("pos.db.pool.validateAfterIdleMillis", 500L))
+                .leakThresholdMillis(Long.getLong("pos.db.pool.leakThresholdMillis", 30_000L))
+                .traceLeaks(Boolean.getBoolean("pos.db.pool.traceLeaks"))
+                .build();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(p::close, "db-pool-shutdown"));
+        return p;
+    }
+
+    /**
+     * Whether this process talks to the built-in default database (no pos.db.url, or the
+     * default URL given explicitly), i.e. the live till database.
+     */
+    public static boolean isDefaultDatabase() {
+        String url = System.getProperty("pos.db.url");
+        return url == null || url.trim().isEmpty() || url.trim().equals(URL);
+    }
+
+    /**
+     * The configured URL with the tuning profile and any pos.db.jdbc.* properties added.
+     */
+    public static String jdbcUrl() {
+        String url = System.getProperty("pos.db.url", URL);
+        if (!url.startsWith("jdbc:mysql:")) {
+            return url; // Other drivers use other URL syntax
+        }
+
+        Map<String, String> extra = new LinkedHashMap<>();
+        if (!"off".equalsIgnoreCase(System.getProperty("pos.db.tuning"))) {
+            extra.putAll(TUNED_PROPERTIES);
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(JDBC_PROPERTY_PREFIX)) {
+                extra.put(name.substring(JDBC_PROPERTY_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        return appendUrlProperties(url, extra);
+    }
+
+    private static String appendUrlProperties(String url, Map<String, String> props) {
+        StringBuilder sb = new StringBuilder(url);
+        char separator = url.indexOf('?') >= 0 ? '&' : '?';
+        for (Map.Entry<String, String> e : props.entrySet()) {
+            if (url.contains("?" + e.getKey() + "=") || url.contains("&" + e.getKey() + "=")) {
+                continue; // Explicit URL setting wins
+            }
+            sb.append(separator).append(e.getKey()).append('=').append(e.getValue());
+            separator = '&';
         }
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return sb.toString();
     }
 }
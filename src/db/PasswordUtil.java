@@ -2,13 +2,39 @@ package db;
 
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Utility class for securely hashing and verifying passwords using BCrypt.
+ *
+ * The cost factor is calibrated once per process so one hash takes about
+ * pos.auth.targetHashMillis (default 250 ms) on the machine it runs on, never below
+ * pos.auth.minCost (default 12, the cost used before calibration); -Dpos.auth.bcryptCost=N
+ * fixes it instead. Hashes with a different cost still verify; {@link #needsRehash} tells
+ * the caller to re-hash only those weaker than the current cost, never to lower one.
+ *
+ * Verification is CPU-bound, so it runs on a small bounded pool (pos.auth.threads, default
+ * half the cores; pos.auth.queueSize, default 32) rather than on the EDT or one thread per
+ * login: a shift change cannot take over the whole terminal server.
  */
 public class PasswordUtil {
 
-    // Define the BCrypt strength (cost factor). Higher is slower but more secure.
-    private static final int WORKLOAD = 12;
+    private static final Logger LOG = Logger.getLogger(PasswordUtil.class.getName());
+
+    private static final int MIN_COST = Integer.getInteger("pos.auth.minCost", 12);
+    private static final int MAX_COST = Integer.getInteger("pos.auth.maxCost", 16);
+    private static final long TARGET_HASH_MILLIS = Long.getLong("pos.auth.targetHashMillis", 250L);
+
+    // BCrypt strength (cost factor); 0 until calibrated. Higher is slower but more secure.
+    private static volatile int workload = Integer.getInteger("pos.auth.bcryptCost", 0);
 
     /**
      * Hashes a plain text password using BCrypt.
@@ -17,7 +43,7 @@ public class PasswordUtil {
      */
     public static String hashPassword(String plainPassword) {
         // Generate a salt and hash the password in one step
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(WORKLOAD));
+        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(getWorkload()));
     }
 
     /**
@@ -31,4 +57,123 @@ public class PasswordUtil {
         // Returns false automatically if the hash is invalid/malformed
         return BCrypt.checkpw(plainPassword, storedHash);
     }
-}
\ No newline at end of file
+
+    /**
+     * {@link #verifyPassword} on the verification pool.
+     * The future fails with RejectedExecutionException when too many checks are queued.
+     */
+    public static CompletableFuture<Boolean> verifyAsync(String plainPassword, String storedHash) {
+        return submit(() -> verifyPassword(plainPassword, storedHash));
+    }
+
+    /**
+     * Run password work (e.g. a whole login: lookup, verify, rehash) on the verification pool.
+     * The future fails with RejectedExecutionException when too many tasks are queued.
+     */
+    public static <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            VerifierPool.EXECUTOR.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // COST FACTOR
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Current cost factor, calibrating on first use.
+     */
+    public static int getWorkload() {
+        int w = workload;
+        return w > 0 ? w : calibrate();
+    }
+
+    /**
+     * Calibrate the cost factor in the background at startup, so the first login does not
+     * wait for it.
+     */
+    public static void calibrateInBackground() {
+        if (workload == 0) {
+            submit(PasswordUtil::calibrate);
+        }
+    }
+
+    /**
+     * Pick the cost whose hash time is closest to the target on this machine
+     * (each step up doubles the time).
+     */
+    private static synchronized int calibrate() {
+        if (workload > 0) {
+            return workload;
+        }
+        BCrypt.hashpw("warm-up", BCrypt.gensalt(4)); // Load and JIT the hashing code first
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double minCostMillis = Math.max(best / 1e6, 0.001);
+        int steps = (int) Math.round(Math.log(TARGET_HASH_MILLIS / minCostMillis) / Math.log(2));
+        int cost = Math.max(MIN_COST, Math.min(MAX_COST, MIN_COST + steps));
+
+        LOG.log(Level.FINE, "BCrypt cost calibrated to {0} ({1} ms at cost {2}, target {3} ms)",
+                new Object[]{cost, Math.round(minCostMillis), MIN_COST, TARGET_HASH_MILLIS});
+        workload = cost;
+        return cost;
+    }
+
+    /**
+     * @return the cost factor of a stored hash ("$2a$12$..."), or -1 if it is not a BCrypt hash
+     */
+    public static int costOf(String storedHash) {
+        if (storedHash == null || storedHash.length() < 7 || storedHash.charAt(0) != '$') {
+            return -1;
+        }
+        int end = storedHash.indexOf('$', 1) + 3;
+        if (end < 3 || end > storedHash.length() || storedHash.charAt(end) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(storedHash.substring(end - 2, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Whether a stored hash should be replaced (after a successful login) because its cost
+     * is below the current target. A stronger hash, e.g. from a faster machine, is kept.
+     */
+    public static boolean needsRehash(String storedHash) {
+        return costOf(storedHash) < getWorkload();
+    }
+
+    // Created on first use
+    private static final class VerifierPool {
+        static final ThreadPoolExecutor EXECUTOR;
+        static {
+            int threads = Math.max(1, Integer.getInteger("pos.auth.threads",
+                    Runtime.getRuntime().availableProcessors() / 2));
+            AtomicInteger threadNo = new AtomicInteger();
+            EXECUTOR = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, Integer.getInteger("pos.auth.queueSize", 32))), r -> {
+                        Thread t = new Thread(r, "password-verify-" + threadNo.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package db;
+
+import java.sql.SQLTransientException;
+
+/**
+ * Thrown by ConnectionPool.getConnection when no connection became free within maxWaitMillis.
+ * The database is reachable, just busy: callers should retry, not treat it as an outage.
+ * SQLState HYT00 (timeout expired), never class 08 (connection exception).
+ */
+public class PoolTimeoutException extends SQLTransientException {
+
+    public static final String SQL_STATE = "HYT00";
+
+    public PoolTimeoutException(String message) {
+        super(message, SQL_STATE);
+    }
+}
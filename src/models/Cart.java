@@ -0,0 +1,199 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checkout cart keyed by product ID, with per-line subtotals and a running total (cents).
+ *
+ * Lines live in an array list with a productId -> index map, so add, quantity change and
+ * remove are O(1) regardless of cart size. Removing a line moves the last line into its
+ * slot (order is not preserved on removal). A {@link Listener} is told exactly which line
+ * changed; the cart itself has no UI dependencies.
+ *
+ * Not thread-safe; used from one thread (the EDT for SalesWindow).
+ */
+public class Cart {
+
+    public static final class Line {
+        private final int productId;
+        private final String name;
+        private final long unitCents;
+        private int qty;
+        private long subtotalCents;
+
+        Line(int productId, String name, long unitCents) {
+            this.productId = productId;
+            this.name = name;
+            this.unitCents = unitCents;
+        }
+
+        public int getProductId() { return productId; }
+        public String getName() { return name; }
+        public long getUnitCents() { return unitCents; }
+        public int getQty() { return qty; }
+        public long getSubtotalCents() { return subtotalCents; }
+    }
+
+    /**
+     * Line-level change notifications, fired after the cart has changed.
+     */
+    public interface Listener {
+        void lineInserted(int index);
+        void lineUpdated(int index);
+        void lineDeleted(int index);
+        void cleared();
+    }
+
+    private final List<Line> lines = new ArrayList<>();
+    private final Map<Integer, Integer> indexByProduct = new HashMap<>();
+    private long totalCents;
+    private Listener listener;
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Add {@code qty} units of a product, merging with its existing line.
+     * The unit price is taken when the line is created.
+     * @return index of the line
+     */
+    public int add(Product product, int qty) {
+        if (qty <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + qty);
+        }
+        Integer index = indexByProduct.get(product.getProductId());
+        if (index != null) {
+            Line line = lines.get(index);
+            setQtyAt(index, Math.addExact(line.qty, qty));
+            return index;
+        }
+
+        Line line = new Line(product.getProductId(), product.getName(), product.getPriceCents());
+        line.qty = qty;
+        line.subtotalCents = Money.times(line.unitCents, qty);
+        totalCents = Math.addExact(totalCents, line.subtotalCents);
+
+        int newIndex = lines.size();
+        lines.add(line);
+        indexByProduct.put(line.productId, newIndex);
+        if (listener != null) {
+            listener.lineInserted(newIndex);
+        }
+        return newIndex;
+    }
+
+    /**
+     * Set a product's quantity; 0 removes the line.
+     * @return false if the product is not in the cart
+     */
+    public boolean setQty(int productId, int qty) {
+        Integer index = indexByProduct.get(productId);
+        if (index == null) {
+            return false;
+        }
+        if (qty <= 0) {
+            removeAt(index);
+        } else {
+            setQtyAt(index, qty);
+        }
+        return true;
+    }
+
+    private void setQtyAt(int index, int qty) {
+        Line line = lines.get(index);
+        long subtotal = Money.times(line.unitCents, qty);
+        totalCents = Math.addExact(totalCents - line.subtotalCents, subtotal);
+        line.qty = qty;
+        line.subtotalCents = subtotal;
+        if (listener != null) {
+            listener.lineUpdated(index);
+        }
+    }
+
+    /**
+     * @return false if the product is not in the cart
+     */
+    public boolean remove(int productId) {
+        Integer index = indexByProduct.get(productId);
+        if (index == null) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Remove the line at {@code index}; the last line takes its place.
+     */
+    public void removeAt(int index) {
+        Line removed = lines.get(index);
+        totalCents -= removed.subtotalCents;
+        indexByProduct.remove(removed.productId);
+
+        int last = lines.size() - 1;
+        Line moved = lines.remove(last);
+        if (index != last) {
+            lines.set(index, moved);
+            indexByProduct.put(moved.productId, index);
+        }
+
+        if (listener != null) {
+            listener.lineDeleted(last);
+            if (index != last) {
+                listener.lineUpdated(index);
+            }
+        }
+    }
+
+    public void clear() {
+        lines.clear();
+        indexByProduct.clear();
+        totalCents = 0;
+        if (listener != null) {
+            listener.cleared();
+        }
+    }
+
+    public Line getLine(int index) {
+        return lines.get(index);
+    }
+
+    /**
+     * @return the line for a product, or null if it is not in the cart
+     */
+    public Line findLine(int productId) {
+        Integer index = indexByProduct.get(productId);
+        return index != null ? lines.get(index) : null;
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    /**
+     * Sale items for SaleDAO.addSale, one per line.
+     */
+    public List<SaleItem> toSaleItems() {
+        List<SaleItem> items = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            SaleItem item = new SaleItem();
+            item.setProductId(line.productId);
+            item.setQty(line.qty);
+            item.setPriceCents(line.unitCents);
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,162 @@
+package models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Money amounts as a plain {@code long} number of cents (centavos).
+ *
+ * Prices, costs and totals are stored as cents from the JDBC mapping onwards, so sums are
+ * exact and the cart/report loops do not box or allocate. The database columns are
+ * DECIMAL(x,2); {@link #read} and {@link #write} convert at the JDBC boundary.
+ *
+ * Formatting writes digits directly ({@link #format}, {@link #append}, {@link #toChars})
+ * instead of going through String.format.
+ */
+public final class Money {
+
+    // Longest formatted value: "-92233720368547758.08"
+    public static final int MAX_CHARS = 21;
+
+    private Money() {
+    }
+
+    // ----------------------------------------------------------------------------------
+    // CONVERSION
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Cents of a DECIMAL value (rounded half-up to 2 places); null reads as 0.
+     */
+    public static long fromBigDecimal(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public static long read(ResultSet rs, String column) throws SQLException {
+        return fromBigDecimal(rs.getBigDecimal(column));
+    }
+
+    public static long read(ResultSet rs, int column) throws SQLException {
+        return fromBigDecimal(rs.getBigDecimal(column));
+    }
+
+    public static void write(PreparedStatement stmt, int index, long cents) throws SQLException {
+        stmt.setBigDecimal(index, toBigDecimal(cents));
+    }
+
+    /**
+     * Line total (unit price x quantity).
+     * @throws ArithmeticException on overflow
+     */
+    public static long times(long cents, int qty) {
+        return Math.multiplyExact(cents, (long) qty);
+    }
+
+    /**
+     * Parse user input such as "45", "45.5" or "45.50" (at most two decimals).
+     * @throws NumberFormatException if the text is not a plain amount
+     */
+    public static long parse(String text) {
+        String s = text.trim();
+        boolean negative = s.startsWith("-");
+        int i = negative ? 1 : 0;
+        if (i == s.length()) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+
+        long whole = 0;
+        int digits = 0;
+        for (; i < s.length() && s.charAt(i) != '.'; i++, digits++) {
+            whole = Math.addExact(Math.multiplyExact(whole, 10), digit(s, i, text));
+        }
+
+        long fraction = 0;
+        int decimals = 0;
+        if (i < s.length()) {
+            for (i++; i < s.length(); i++, decimals++) {
+                if (decimals == 2) {
+                    throw new NumberFormatException("At most two decimals allowed: " + text);
+                }
+                fraction = fraction * 10 + digit(s, i, text);
+            }
+        }
+        if (digits == 0 && decimals == 0) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+        if (decimals == 1) {
+            fraction *= 10;
+        }
+
+        long cents = Math.addExact(Math.multiplyExact(whole, 100), fraction);
+        return negative ? -cents : cents;
+    }
+
+    private static int digit(String s, int i, String text) {
+        char c = s.charAt(i);
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+        return c - '0';
+    }
+
+    // ----------------------------------------------------------------------------------
+    // FORMATTING ("1234.50", "-0.05"; no grouping, like the old "%.2f")
+    // ----------------------------------------------------------------------------------
+
+    public static String format(long cents) {
+        char[] buf = new char[MAX_CHARS];
+        int len = toChars(cents, buf);
+        return new String(buf, 0, len);
+    }
+
+    public static StringBuilder append(StringBuilder sb, long cents) {
+        long whole = cents / 100;
+        int fraction = (int) Math.abs(cents % 100);
+        if (cents < 0 && whole == 0) {
+            sb.append('-'); // e.g. -0.05
+        }
+        sb.append(whole).append('.');
+        sb.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        return sb;
+    }
+
+    /**
+     * Write the formatted amount into {@code dst} (at least {@link #MAX_CHARS} long) without
+     * allocating, e.g. for Writer.write(char[], int, int).
+     * @return number of chars written
+     */
+    public static int toChars(long cents, char[] dst) {
+        boolean negative = cents < 0;
+        // Work with a non-positive value so Long.MIN_VALUE needs no special case
+        long n = negative ? cents : -cents;
+
+        // Build right-aligned, then move to the front
+        int pos = MAX_CHARS;
+        dst[--pos] = (char) ('0' - (int) (n % 10));
+        n /= 10;
+        dst[--pos] = (char) ('0' - (int) (n % 10));
+        n /= 10;
+        dst[--pos] = '.';
+        do {
+            dst[--pos] = (char) ('0' - (int) (n % 10));
+            n /= 10;
+        } while (n != 0);
+        if (negative) {
+            dst[--pos] = '-';
+        }
+
+        int len = MAX_CHARS - pos;
+        System.arraycopy(dst, pos, dst, 0, len);
+        return len;
+    }
+}
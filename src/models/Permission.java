@@ -0,0 +1,40 @@
+package models;
+
+/**
+ * Things a role may do in the POS. Each permission is one bit of a {@code long} mask
+ * (see dao.PermissionCache), so a check is a single AND.
+ */
+public enum Permission {
+    PROCESS_SALES,
+    VIEW_PRODUCTS,
+    MANAGE_PRODUCTS,
+    MANAGE_INVENTORY,
+    VIEW_REPORTS,
+    EXPORT_REPORTS,
+    MANAGE_USERS,
+    MANAGE_SETTINGS;
+
+    private final long bit = 1L << ordinal();
+
+    public long bit() {
+        return bit;
+    }
+
+    /**
+     * Mask with every given permission set.
+     */
+    public static long maskOf(Permission... permissions) {
+        long mask = 0;
+        for (Permission p : permissions) {
+            mask |= p.bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Mask with every permission set.
+     */
+    public static long all() {
+        return maskOf(values());
+    }
+}
@@ -7,8 +7,8 @@ public class Product {
     private String sku;
     private String name;
     private String category;
-    private double price;
-    private double cost;
+    private long priceCents; // see Money
+    private long costCents;
     private int stockQty;
     private int reorderLevel;
     private Timestamp createdAt;
@@ -33,15 +33,15 @@ public class Product {
     public void setCategory(String category) {
         this.category = category; }
 
-    public double getPrice() {
-        return price; }
-    public void setPrice(double price) {
-        this.price = price; }
+    public long getPriceCents() {
+        return priceCents; }
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents; }
 
-    public double getCost() {
-        return cost; }
-    public void setCost(double cost) {
-        this.cost = cost; }
+    public long getCostCents() {
+        return costCents; }
+    public void setCostCents(long costCents) {
+        this.costCents = costCents; }
 
     public int getStockQty() {
         return stockQty; }
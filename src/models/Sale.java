@@ -7,9 +7,10 @@ public class Sale {
     private int saleId;
     private int accountId;
     private Timestamp saleDatetime;
-    private double totalAmount;
+    private long totalCents; // see Money
     private String paymentMethod;
     private String remarks;
+    private String clientRef; // idempotency key, set once at checkout
     private List<SaleItem> items; // relationship
 
     // Getters and Setters
@@ -22,8 +23,8 @@ public class Sale {
     public Timestamp getSaleDatetime() { return saleDatetime; }
     public void setSaleDatetime(Timestamp saleDatetime) { this.saleDatetime = saleDatetime; }
 
-    public double getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
+    public long getTotalCents() { return totalCents; }
+    public void setTotalCents(long totalCents) { this.totalCents = totalCents; }
 
     public String getPaymentMethod() { return paymentMethod; }
     public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
@@ -31,6 +32,9 @@ public class Sale {
     public String getRemarks() { return remarks; }
     public void setRemarks(String remarks) { this.remarks = remarks; }
 
+    public String getClientRef() { return clientRef; }
+    public void setClientRef(String clientRef) { this.clientRef = clientRef; }
+
     public List<SaleItem> getItems() { return items; }
     public void setItems(List<SaleItem> items) { this.items = items; }
 }
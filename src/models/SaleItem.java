@@ -5,7 +5,7 @@ public class SaleItem {
     private int saleId;
     private int productId;
     private int qty;
-    private double price;
+    private long priceCents; // unit price, see Money
 
     // Getters and Setters
     public int getSaleItemId() { return saleItemId; }
@@ -20,6 +20,6 @@ public class SaleItem {
     public int getQty() { return qty; }
     public void setQty(int qty) { this.qty = qty; }
 
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public long getPriceCents() { return priceCents; }
+    public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
 }
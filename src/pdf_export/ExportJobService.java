@@ -0,0 +1,223 @@
+package pdf_export;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs sales exports in the background so the UI never waits on a report.
+ *
+ * Exports run on a small bounded pool (pos.export.threads, default 2) with a bounded
+ * queue (pos.export.queueSize, default 8); a submit beyond that is rejected instead of
+ * piling up. Each job writes to a temp file next to the target and renames it into place
+ * only when the export finished, so a cancelled or failed export never leaves a partial
+ * report behind.
+ */
+public class ExportJobService {
+
+    public enum Format { PDF, CSV }
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /**
+     * Job callbacks, invoked on the export thread (hop to the EDT before touching Swing).
+     */
+    public interface JobListener {
+        void onProgress(ExportJob job, long rowsWritten);
+
+        /**
+         * Called once when the job reaches DONE, FAILED or CANCELLED.
+         * @param error the failure for FAILED, otherwise null
+         */
+        void onFinished(ExportJob job, Exception error);
+    }
+
+    private static volatile ExportJobService instance;
+
+    private final ThreadPoolExecutor executor;
+
+    private ExportJobService(int threads, int queueSize) {
+        AtomicInteger threadNo = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "export-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1); // Stay behind the cashier's UI
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static ExportJobService getInstance() {
+        ExportJobService s = instance;
+        if (s == null) {
+            synchronized (ExportJobService.class) {
+                s = instance;
+                if (s == null) {
+                    s = new ExportJobService(
+                            Math.max(1, Integer.getInteger("pos.export.threads", 2)),
+                            Math.max(1, Integer.getInteger("pos.export.queueSize", 8)));
+                    instance = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Queue an export of the sales in a date range (YYYY-MM-DD, either may be empty).
+     * @throws RejectedExecutionException when the export queue is full
+     */
+    public ExportJob submit(Format format, String startDate, String endDate, Path target,
+                            JobListener listener) {
+        ExportJob job = new ExportJob(format, startDate, endDate, target.toAbsolutePath(), listener, executor);
+        job.future = executor.submit(job::run);
+        return job;
+    }
+
+    /**
+     * Number of exports currently running or waiting.
+     */
+    public int getPendingCount() {
+        return executor.getActiveCount() + executor.getQueue().size();
+    }
+
+    // ----------------------------------------------------------------------------------
+    // JOB
+    // ----------------------------------------------------------------------------------
+
+    public static final class ExportJob {
+        private final Format format;
+        private final String startDate;
+        private final String endDate;
+        private final Path target;
+        private final JobListener listener;
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicLong rowsWritten = new AtomicLong();
+        // QUEUED -> RUNNING (run) or QUEUED -> CANCELLED (cancel): whichever wins reports the end
+        private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+        private volatile boolean cancelRequested;
+        private volatile Future<?> future;
+
+        private ExportJob(Format format, String startDate, String endDate, Path target, JobListener listener,
+                          ThreadPoolExecutor executor) {
+            this.format = format;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.target = target;
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        public Format getFormat() {
+            return format;
+        }
+
+        public Path getTarget() {
+            return target;
+        }
+
+        public State getState() {
+            return state.get();
+        }
+
+        public long getRowsWritten() {
+            return rowsWritten.get();
+        }
+
+        /**
+         * Request cancellation. A queued job never starts; a running job stops at the next
+         * row and its temp file is deleted.
+         */
+        public void cancel() {
+            cancelRequested = true;
+            if (state.compareAndSet(State.QUEUED, State.CANCELLED)) {
+                // Never started, and run() will not start it: free its queue slot and report here
+                Future<?> f = future;
+                if (f instanceof Runnable) {
+                    executor.remove((Runnable) f);
+                }
+                if (listener != null) {
+                    listener.onFinished(this, null);
+                }
+            }
+        }
+
+        private void run() {
+            if (!state.compareAndSet(State.QUEUED, State.RUNNING)) {
+                return; // Cancelled while queued; cancel() already reported it
+            }
+
+            Path temp = null;
+            Exception error = null;
+            try {
+                Path dir = target.getParent();
+                temp = Files.createTempFile(dir, "." + target.getFileName(), ".part");
+
+                ExportProgressListener progress = new ExportProgressListener() {
+                    @Override
+                    public void onProgress(long rows) {
+                        rowsWritten.set(rows);
+                        if (listener != null) {
+                            listener.onProgress(ExportJob.this, rows);
+                        }
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return cancelRequested;
+                    }
+                };
+
+                if (format == Format.PDF) {
+                    PDFExporter.exportSalesToPDF(startDate, endDate, temp.toString(), progress);
+                } else {
+                    PDFExporter.exportSalesToCSV(startDate, endDate, temp.toString(), progress);
+                }
+
+                moveIntoPlace(temp, target);
+                temp = null;
+                state.set(State.DONE);
+            } catch (CancellationException e) {
+                state.set(State.CANCELLED);
+            } catch (Exception e) {
+                e.printStackTrace();
+                error = e;
+                state.set(State.FAILED);
+            } finally {
+                if (temp != null) {
+                    try {
+                        Files.deleteIfExists(temp);
+                    } catch (IOException ignored) {
+                        // Best effort; the .part file is hidden and harmless
+                    }
+                }
+            }
+
+            if (listener != null) {
+                listener.onFinished(this, error);
+            }
+        }
+
+        private static void moveIntoPlace(Path temp, Path target) throws IOException {
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Same directory, so this only happens on unusual file systems
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package pdf_export;
+
+/**
+ * Progress callback for the streaming exports in PDFExporter.
+ * Called after every row written, from the exporting thread.
+ */
+public interface ExportProgressListener {
+
+    void onProgress(long rowsWritten);
+
+    /**
+     * Checked before each row; returning true aborts the export with a CancellationException.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
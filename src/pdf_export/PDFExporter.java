@@ -5,13 +5,21 @@ import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
 
+import dao.SaleDAO;
+import models.Money;
+
 import javax.swing.*;
 import javax.swing.table.TableModel;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CancellationException;
 
 public class PDFExporter {
 
@@ -23,36 +31,7 @@ public class PDFExporter {
         PdfWriter.getInstance(document, new FileOutputStream(filePath));
         document.open();
 
-        // Add title
-        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
-        Paragraph title = new Paragraph("Sales Report", titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        title.setSpacingAfter(10);
-        document.add(title);
-
-        // Add date range filter info if applicable
-        if (!startDate.isEmpty() || !endDate.isEmpty()) {
-            Font filterFont = FontFactory.getFont(FontFactory.HELVETICA, 11, BaseColor.DARK_GRAY);
-            String filterText = "Filtered by Date: ";
-            if (!startDate.isEmpty() && !endDate.isEmpty()) {
-                filterText += startDate + " to " + endDate;
-            } else if (!startDate.isEmpty()) {
-                filterText += "From " + startDate;
-            } else {
-                filterText += "Until " + endDate;
-            }
-            Paragraph filter = new Paragraph(filterText, filterFont);
-            filter.setAlignment(Element.ALIGN_CENTER);
-            filter.setSpacingAfter(15);
-            document.add(filter);
-        }
-
-        // Add generation date
-        Font dateFont = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.GRAY);
-        Paragraph date = new Paragraph("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), dateFont);
-        date.setAlignment(Element.ALIGN_RIGHT);
-        date.setSpacingAfter(20);
-        document.add(date);
+        addReportHeader(document, startDate, endDate);
 
         // Get table model
         TableModel tableModel = salesTable.getModel();
@@ -77,7 +56,8 @@ public class PDFExporter {
 
         // Add data rows
         Font dataFont = FontFactory.getFont(FontFactory.HELVETICA, 9, BaseColor.BLACK);
-        double totalAmount = 0.0;
+        long totalCents = 0;
+        StringBuilder amountText = new StringBuilder(Money.MAX_CHARS + 1);
 
         for (int row = 0; row < tableModel.getRowCount(); row++) {
             for (int col = 0; col < tableModel.getColumnCount(); col++) {
@@ -86,9 +66,11 @@ public class PDFExporter {
 
                 // Format the cell value
                 if (value != null) {
-                    if (col == 3 && value instanceof Double) { // Total Amount column
-                        cellText = String.format("$%.2f", (Double) value);
-                        totalAmount += (Double) value;
+                    if (col == 3 && value instanceof Long) { // Total Amount column (cents)
+                        long cents = (Long) value;
+                        amountText.setLength(0);
+                        cellText = Money.append(amountText.append('$'), cents).toString();
+                        totalCents += cents;
                     } else {
                         cellText = value.toString();
                     }
@@ -120,7 +102,7 @@ public class PDFExporter {
         recordCount.setAlignment(Element.ALIGN_LEFT);
         document.add(recordCount);
 
-        Paragraph totalSales = new Paragraph(String.format("Total Sales Amount: $%.2f", totalAmount), summaryFont);
+        Paragraph totalSales = new Paragraph("Total Sales Amount: $" + Money.format(totalCents), summaryFont);
         totalSales.setAlignment(Element.ALIGN_LEFT);
         document.add(totalSales);
 
@@ -224,6 +206,189 @@ public class PDFExporter {
         }
     }
 
+    /**
+     * Title, date range filter info and generation time shared by the sales PDF exports
+     */
+    private static void addReportHeader(Document document, String startDate, String endDate) throws DocumentException {
+        // Add title
+        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
+        Paragraph title = new Paragraph("Sales Report", titleFont);
+        title.setAlignment(Element.ALIGN_CENTER);
+        title.setSpacingAfter(10);
+        document.add(title);
+
+        // Add date range filter info if applicable
+        if (!startDate.isEmpty() || !endDate.isEmpty()) {
+            Font filterFont = FontFactory.getFont(FontFactory.HELVETICA, 11, BaseColor.DARK_GRAY);
+            String filterText = "Filtered by Date: ";
+            if (!startDate.isEmpty() && !endDate.isEmpty()) {
+                filterText += startDate + " to " + endDate;
+            } else if (!startDate.isEmpty()) {
+                filterText += "From " + startDate;
+            } else {
+                filterText += "Until " + endDate;
+            }
+            Paragraph filter = new Paragraph(filterText, filterFont);
+            filter.setAlignment(Element.ALIGN_CENTER);
+            filter.setSpacingAfter(15);
+            document.add(filter);
+        }
+
+        // Add generation date
+        Font dateFont = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.GRAY);
+        Paragraph date = new Paragraph("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), dateFont);
+        date.setAlignment(Element.ALIGN_RIGHT);
+        date.setSpacingAfter(20);
+        document.add(date);
+    }
+
+    // ----------------------------------------------------------------------------------
+    // STREAMING EXPORTS (read straight from the database, constant memory)
+    // ----------------------------------------------------------------------------------
+
+    private static final String[] SALES_COLUMNS = {"Sale ID", "Account ID", "Date/Time", "Total Amount", "Payment Method", "Remarks"};
+    private static final float[] SALES_COLUMN_WIDTHS = {1f, 1.2f, 2.5f, 1.5f, 1.8f, 3f};
+    // Rows buffered in the PdfPTable / CSV writer before they are flushed to the file
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    /**
+     * Export sales in a date range (YYYY-MM-DD, either may be empty) to PDF, streaming rows
+     * from SaleDAO. Rows are written to the document in chunks, so memory use does not grow
+     * with the size of the range.
+     * @return number of sales exported
+     */
+    public static long exportSalesToPDF(String startDate, String endDate, String filePath,
+                                        ExportProgressListener listener) throws Exception {
+        Document document = new Document(PageSize.A4.rotate());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filePath))) {
+            PdfWriter.getInstance(document, out);
+            document.open();
+
+            addReportHeader(document, startDate, endDate);
+
+            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, BaseColor.WHITE);
+            Font dataFont = FontFactory.getFont(FontFactory.HELVETICA, 9, BaseColor.BLACK);
+
+            PdfPTable pdfTable = new PdfPTable(SALES_COLUMNS.length);
+            pdfTable.setWidthPercentage(100);
+            pdfTable.setWidths(SALES_COLUMN_WIDTHS);
+            pdfTable.setHeaderRows(1); // Repeat header on every page
+            // Large-table mode: rows already added to the document are released from memory
+            pdfTable.setComplete(false);
+
+            for (String column : SALES_COLUMNS) {
+                PdfPCell cell = new PdfPCell(new Phrase(column, headerFont));
+                cell.setBackgroundColor(BaseColor.DARK_GRAY);
+                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                cell.setPadding(8);
+                pdfTable.addCell(cell);
+            }
+
+            DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            long[] totalCents = {0};
+            StringBuilder amountText = new StringBuilder(Money.MAX_CHARS + 1);
+            long[] written = {0};
+
+            long rows = new SaleDAO().streamSalesByDateRange(startDate, endDate, sale -> {
+                checkCancelled(listener);
+
+                addDataCell(pdfTable, String.valueOf(sale.getSaleId()), dataFont, Element.ALIGN_RIGHT);
+                addDataCell(pdfTable, String.valueOf(sale.getAccountId()), dataFont, Element.ALIGN_RIGHT);
+                addDataCell(pdfTable, sale.getSaleDatetime() != null
+                        ? sale.getSaleDatetime().toLocalDateTime().format(dateFormat) : "N/A", dataFont, Element.ALIGN_CENTER);
+                amountText.setLength(0);
+                addDataCell(pdfTable, Money.append(amountText.append('$'), sale.getTotalCents()).toString(), dataFont, Element.ALIGN_RIGHT);
+                addDataCell(pdfTable, sale.getPaymentMethod(), dataFont, Element.ALIGN_CENTER);
+                addDataCell(pdfTable, sale.getRemarks(), dataFont, Element.ALIGN_LEFT);
+                totalCents[0] += sale.getTotalCents();
+
+                if (++written[0] % FLUSH_EVERY_ROWS == 0) {
+                    document.add(pdfTable);
+                }
+                if (listener != null) {
+                    listener.onProgress(written[0]);
+                }
+            });
+
+            pdfTable.setComplete(true);
+            document.add(pdfTable);
+
+            // Add summary section
+            document.add(new Paragraph("\n"));
+            Font summaryFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
+
+            Paragraph recordCount = new Paragraph("Total Records: " + rows, summaryFont);
+            recordCount.setAlignment(Element.ALIGN_LEFT);
+            document.add(recordCount);
+
+            Paragraph totalSales = new Paragraph("Total Sales Amount: $" + Money.format(totalCents[0]), summaryFont);
+            totalSales.setAlignment(Element.ALIGN_LEFT);
+            document.add(totalSales);
+
+            document.close();
+            return rows;
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    /**
+     * Export sales in a date range (YYYY-MM-DD, either may be empty) to CSV, streaming rows
+     * from SaleDAO through a buffered writer.
+     * @return number of sales exported
+     */
+    public static long exportSalesToCSV(String startDate, String endDate, String filePath,
+                                        ExportProgressListener listener) throws Exception {
+        try (Writer writer = new BufferedWriter(new FileWriter(filePath), 64 * 1024)) {
+            for (int i = 0; i < SALES_COLUMNS.length; i++) {
+                writer.append(escapeCSV(SALES_COLUMNS[i]));
+                writer.append(i < SALES_COLUMNS.length - 1 ? "," : "\n");
+            }
+
+            DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            char[] amount = new char[Money.MAX_CHARS];
+            long[] written = {0};
+
+            long rows = new SaleDAO().streamSalesByDateRange(startDate, endDate, sale -> {
+                checkCancelled(listener);
+
+                writer.append(String.valueOf(sale.getSaleId())).append(',');
+                writer.append(String.valueOf(sale.getAccountId())).append(',');
+                writer.append(sale.getSaleDatetime() != null
+                        ? sale.getSaleDatetime().toLocalDateTime().format(dateFormat) : "").append(',');
+                writer.write(amount, 0, Money.toChars(sale.getTotalCents(), amount));
+                writer.append(',');
+                writer.append(escapeCSV(sale.getPaymentMethod())).append(',');
+                writer.append(escapeCSV(sale.getRemarks())).append('\n');
+
+                if (++written[0] % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+                if (listener != null) {
+                    listener.onProgress(written[0]);
+                }
+            });
+
+            writer.flush();
+            return rows;
+        }
+    }
+
+    private static void addDataCell(PdfPTable table, String text, Font font, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(text != null ? text : "", font));
+        cell.setPadding(5);
+        cell.setHorizontalAlignment(alignment);
+        table.addCell(cell);
+    }
+
+    private static void checkCancelled(ExportProgressListener listener) {
+        if ((listener != null && listener.isCancelled()) || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Export cancelled");
+        }
+    }
+
     /**
      * Escape special characters in CSV format
      */
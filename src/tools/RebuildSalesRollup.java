@@ -0,0 +1,31 @@
+package tools;
+
+import dao.SalesRollupDAO;
+import db.DatabaseConnection;
+
+/**
+ * Backfills (or repairs) sales_daily_rollup and sales_hourly_rollup from the sales table.
+ *
+ * Usage: java tools.RebuildSalesRollup [startDate] [endDate]
+ *
+ * Dates are YYYY-MM-DD and inclusive; leave both out to rebuild everything. Run it once
+ * after creating the rollup tables, and while no sales are being processed.
+ */
+public class RebuildSalesRollup {
+
+    public static void main(String[] args) throws Exception {
+        String startDate = args.length > 0 ? args[0] : "";
+        String endDate = args.length > 1 ? args[1] : "";
+
+        long started = System.currentTimeMillis();
+        try {
+            int rows = new SalesRollupDAO().rebuild(startDate, endDate);
+            System.out.printf("Rebuilt sales rollups (%s to %s): %d daily rows in %d ms%n",
+                    startDate.isEmpty() ? "beginning" : startDate,
+                    endDate.isEmpty() ? "today" : endDate,
+                    rows, System.currentTimeMillis() - started);
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package tools;
+
+import dao.ReorderForecastDAO;
+import db.DatabaseConnection;
+
+/**
+ * Nightly reorder forecast: adds the day's sales to the per-product sales statistics and
+ * recomputes suggested reorder levels (see ReorderForecastDAO). Review the suggestions in
+ * the reorder_forecast_report view.
+ *
+ * Usage: java tools.RunReorderForecast [--full]
+ *
+ * --full drops the statistics first and reads all sales history again, e.g. after many
+ * sales were voided. Without it only sales added since the last run are read.
+ */
+public class RunReorderForecast {
+
+    public static void main(String[] args) throws Exception {
+        boolean full = args.length > 0 && "--full".equals(args[0]);
+        ReorderForecastDAO dao = new ReorderForecastDAO();
+
+        long started = System.currentTimeMillis();
+        try {
+            if (full) {
+                dao.resetStats();
+            }
+            long rows = dao.updateStats();
+            int products = dao.computeForecasts();
+            System.out.printf("Reorder forecast: %d new sale item rows, %d products forecast in %d ms%n",
+                    rows, products, System.currentTimeMillis() - started);
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ui;
+
+import dao.PermissionCache;
+import models.Account;
+import models.Permission;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Permission checks for privileged UI actions. Windows call {@link #require} at the start
+ * of an action rather than trusting the role they were opened with, so a user whose role
+ * was changed or who was deleted loses access without logging out.
+ */
+final class AccessGuard {
+
+    private AccessGuard() {
+    }
+
+    /**
+     * @return true if the user may do it; otherwise tells them so and returns false
+     */
+    static boolean require(Component parent, Account user, Permission permission) {
+        if (PermissionCache.getInstance().has(user, permission)) {
+            return true;
+        }
+        JOptionPane.showMessageDialog(parent,
+                "You do not have permission to do this. Please contact your administrator.",
+                "Access Denied",
+                JOptionPane.WARNING_MESSAGE);
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package ui;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs a window's data loading (DAO calls) off the Event Dispatch Thread.
+ *
+ * One loader per table/list a window refreshes. Every {@link #load} call starts a new
+ * generation; the previous request is cancelled and, if its result still arrives, it is
+ * dropped, so a slow earlier refresh can never overwrite a newer one. A request that
+ * does not finish within the timeout (pos.ui.loadTimeoutMillis, default 30s) is
+ * cancelled and reported as a TimeoutException.
+ *
+ * Must be used from the EDT; callbacks are always delivered on the EDT.
+ */
+public class AsyncLoader<T> {
+
+    /**
+     * Work done on the background thread. Do the DAO call and any row mapping here.
+     */
+    public interface Query<T> {
+        T load() throws Exception;
+    }
+
+    private static final int DEFAULT_TIMEOUT_MILLIS = Integer.getInteger("pos.ui.loadTimeoutMillis", 30_000);
+
+    private final int timeoutMillis;
+    private int generation;
+    private SwingWorker<T, Void> current;
+    private Timer timeoutTimer;
+
+    public AsyncLoader() {
+        this(DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public AsyncLoader(int timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Start loading; supersedes any request still in flight.
+     * @param onSuccess receives the result on the EDT (only if this is still the latest request)
+     * @param onError receives the failure on the EDT, including timeouts
+     */
+    public void load(Query<T> query, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        cancel();
+        int myGeneration = ++generation;
+
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return query.load();
+            }
+
+            @Override
+            protected void done() {
+                if (myGeneration != generation) {
+                    return; // Superseded or cancelled: drop the stale result
+                }
+                stopTimeoutTimer();
+                current = null;
+                try {
+                    onSuccess.accept(get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    onError.accept(cause instanceof Exception ? (Exception) cause : e);
+                } catch (InterruptedException | CancellationException e) {
+                    // Cancelled while this was still the latest request: nothing to show
+                }
+            }
+        };
+
+        current = worker;
+        timeoutTimer = new Timer(timeoutMillis, e -> {
+            if (myGeneration == generation) {
+                cancel();
+                onError.accept(new TimeoutException("Loading took longer than " + timeoutMillis / 1000 + " seconds"));
+            }
+        });
+        timeoutTimer.setRepeats(false);
+        timeoutTimer.start();
+
+        worker.execute();
+    }
+
+    /**
+     * Cancel the request in flight, if any. Its result (if it still arrives) is dropped.
+     */
+    public void cancel() {
+        generation++;
+        stopTimeoutTimer();
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    public boolean isLoading() {
+        return current != null;
+    }
+
+    private void stopTimeoutTimer() {
+        if (timeoutTimer != null) {
+            timeoutTimer.stop();
+            timeoutTimer = null;
+        }
+    }
+
+    /**
+     * Replace all rows of a table model with a single change event, instead of one
+     * event per addRow. Columns, renderers and widths are left untouched.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void replaceRows(DefaultTableModel model, List<Object[]> rows) {
+        Vector data = model.getDataVector();
+        data.clear();
+        data.ensureCapacity(rows.size());
+        for (Object[] row : rows) {
+            Vector<Object> v = new Vector<>(row.length);
+            for (Object cell : row) {
+                v.add(cell);
+            }
+            data.add(v);
+        }
+        model.fireTableDataChanged();
+    }
+}
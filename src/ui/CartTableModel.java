@@ -0,0 +1,78 @@
+package ui;
+
+import models.Cart;
+import models.Money;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table view of a {@link Cart}. Each cart change fires a single-row event, so
+ * the table repaints only the line that changed.
+ */
+public class CartTableModel extends AbstractTableModel implements Cart.Listener {
+
+    private static final String[] COLUMNS = {"Product ID", "Name", "Qty", "Price", "Subtotal"};
+
+    private final Cart cart;
+
+    public CartTableModel(Cart cart) {
+        this.cart = cart;
+        cart.setListener(this);
+    }
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    @Override
+    public int getRowCount() {
+        return cart.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Cart.Line line = cart.getLine(rowIndex);
+        switch (columnIndex) {
+            case 0: return line.getProductId();
+            case 1: return line.getName();
+            case 2: return line.getQty();
+            case 3: return Money.format(line.getUnitCents());
+            case 4: return Money.format(line.getSubtotalCents());
+            default: return null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Cart.Listener
+    // ----------------------------------------------------------------------------------
+
+    @Override
+    public void lineInserted(int index) {
+        fireTableRowsInserted(index, index);
+    }
+
+    @Override
+    public void lineUpdated(int index) {
+        fireTableRowsUpdated(index, index);
+    }
+
+    @Override
+    public void lineDeleted(int index) {
+        fireTableRowsDeleted(index, index);
+    }
+
+    @Override
+    public void cleared() {
+        fireTableDataChanged();
+    }
+}
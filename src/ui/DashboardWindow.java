@@ -1,12 +1,19 @@
 package ui;
 
+import dao.LowStockTracker;
+import dao.OfflineMode;
+import dao.PermissionCache;
+import dao.ProductDAO;
+import dao.SessionManager;
 import models.Account;
+import models.Permission;
 
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 public class DashboardWindow extends JFrame {
     private JButton productsButton;
@@ -15,11 +22,29 @@ public class DashboardWindow extends JFrame {
     private JButton reportsButton;
     private JButton inventoryButton;
     private JButton settingsButton;
+    private JButton lockButton;
     private JButton logoutButton;
     private final Account userAccount;
+    private String sessionToken; // SessionManager token; renewed on every unlock
+    private boolean pinSet;
     private JLabel statusLabel;
     private JLabel clockLabel;
     private Timer clockTimer;
+    private JLabel lowStockLabel;
+
+    private static final int LOW_STOCK_TOOLTIP_ROWS = 10;
+    private final AsyncLoader<List<LowStockTracker.Alert>> lowStockLoader = new AsyncLoader<>();
+    // Pushed from whichever thread changed stock; hand off to the EDT
+    private final LowStockTracker.Listener lowStockListener =
+            alerts -> SwingUtilities.invokeLater(() -> showLowStock(alerts));
+    // Told from the offline replay thread when a journaled sale is rejected
+    private final OfflineMode.DeadLetterListener deadLetterListener =
+            (sale, error, file) -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "An offline sale (" + sale.getClientRef() + ") was rejected by the database and was not saved.\n"
+                            + "Reason: " + error.getMessage() + "\n"
+                            + "It has been written to " + file + " for re-entry.",
+                    "Offline Sale Not Saved",
+                    JOptionPane.WARNING_MESSAGE));
 
     // Color scheme
     private static final Color PRIMARY_COLOR = new Color(41, 128, 185);
@@ -29,8 +54,9 @@ public class DashboardWindow extends JFrame {
     private static final Color CARD_BG = new Color(255, 255, 255);
     private static final Color HOVER_COLOR = new Color(52, 152, 219);
 
-    public DashboardWindow(Account account) {
+    public DashboardWindow(Account account, String sessionToken) {
         this.userAccount = account;
+        this.sessionToken = sessionToken;
 
         // --- Frame Setup ---
         setTitle("POS Dashboard");
@@ -69,6 +95,12 @@ public class DashboardWindow extends JFrame {
 
         // Apply RBAC
         configureAccess();
+
+        // Reorder alerts
+        startLowStockAlerts();
+
+        // Offline sales the database rejected on replay
+        OfflineMode.addDeadLetterListener(deadLetterListener);
     }
 
     /**
@@ -267,8 +299,27 @@ public class DashboardWindow extends JFrame {
             }
         });
 
+        lowStockLabel = new JLabel();
+        lowStockLabel.setForeground(new Color(241, 196, 15));
+        lowStockLabel.setFont(new Font("SansSerif", Font.BOLD, 12));
+        lowStockLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        lowStockLabel.setVisible(false);
+
         statusBar.add(statusLabel, BorderLayout.WEST);
-        statusBar.add(logoutButton, BorderLayout.EAST);
+        statusBar.add(lowStockLabel, BorderLayout.CENTER);
+        lockButton = new JButton("🔒 Lock");
+        lockButton.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        lockButton.setForeground(Color.WHITE);
+        lockButton.setBackground(PRIMARY_COLOR);
+        lockButton.setBorder(new EmptyBorder(5, 15, 5, 15));
+        lockButton.setFocusPainted(false);
+        lockButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+
+        JPanel sessionButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        sessionButtons.setOpaque(false);
+        sessionButtons.add(lockButton);
+        sessionButtons.add(logoutButton);
+        statusBar.add(sessionButtons, BorderLayout.EAST);
 
         return statusBar;
     }
@@ -278,35 +329,42 @@ public class DashboardWindow extends JFrame {
      */
     private void setupActionListeners() {
         salesButton.addActionListener(e -> {
+            if (!AccessGuard.require(this, userAccount, Permission.PROCESS_SALES)) return;
             updateStatus("Opening Sales Module...");
             openWindow(new SalesWindow(userAccount));
         });
 
         productsButton.addActionListener(e -> {
+            if (!AccessGuard.require(this, userAccount, Permission.VIEW_PRODUCTS)) return;
             updateStatus("Opening Product Management...");
-            openWindow(new ProductManagementWindow());
+            openWindow(new ProductManagementWindow(userAccount));
         });
 
         reportsButton.addActionListener(e -> {
+            if (!AccessGuard.require(this, userAccount, Permission.VIEW_REPORTS)) return;
             updateStatus("Loading Reports...");
-            openWindow(new ReportsWindow());
+            openWindow(new ReportsWindow(userAccount));
         });
 
         usersButton.addActionListener(e -> {
+            if (!AccessGuard.require(this, userAccount, Permission.MANAGE_USERS)) return;
             updateStatus("Opening User Management...");
-            openWindow(new UsersWindow());
+            openWindow(new UsersWindow(userAccount));
         });
 
         inventoryButton.addActionListener(e -> {
+            if (!AccessGuard.require(this, userAccount, Permission.MANAGE_INVENTORY)) return;
             updateStatus("Opening Inventory Module...");
             JOptionPane.showMessageDialog(this, "Inventory module coming soon!", "Info", JOptionPane.INFORMATION_MESSAGE);
         });
 
         settingsButton.addActionListener(e -> {
+            if (!AccessGuard.require(this, userAccount, Permission.MANAGE_SETTINGS)) return;
             updateStatus("Opening Settings...");
             JOptionPane.showMessageDialog(this, "Settings module coming soon!", "Info", JOptionPane.INFORMATION_MESSAGE);
         });
 
+        lockButton.addActionListener(e -> lockTerminal());
         logoutButton.addActionListener(e -> handleLogout());
     }
 
@@ -331,42 +389,61 @@ public class DashboardWindow extends JFrame {
         );
 
         if (confirm == JOptionPane.YES_OPTION) {
-            stopClock();
-            dispose();
-            new LoginWindow().setVisible(true);
+            logout();
+        }
+    }
+
+    private void logout() {
+        stopClock();
+        stopLowStockAlerts();
+        OfflineMode.removeDeadLetterListener(deadLetterListener);
+        dispose();
+        new LoginWindow().setVisible(true);
+    }
+
+    /**
+     * Lock the terminal until the same user unlocks it. The first lock of a session offers
+     * to set a PIN (SessionManager.setPin), so unlocking does not need the password.
+     */
+    private void lockTerminal() {
+        SessionManager sessions = SessionManager.getInstance();
+        if (!pinSet && sessions.validate(sessionToken) != null) {
+            JPasswordField pinField = new JPasswordField(8);
+            int choice = JOptionPane.showConfirmDialog(this,
+                    new Object[]{"Set a PIN (4-8 digits) to unlock quickly,\nor leave it empty to unlock with your password:", pinField},
+                    "Lock Terminal", JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
+            if (choice != JOptionPane.OK_OPTION) {
+                return;
+            }
+            String pin = new String(pinField.getPassword());
+            if (!pin.isEmpty()) {
+                if (!pin.matches("\\d{4,8}")) {
+                    JOptionPane.showMessageDialog(this, "The PIN must be 4 to 8 digits.", "Invalid PIN", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                pinSet = sessions.setPin(sessionToken, pin);
+            }
+        }
+
+        updateStatus("Terminal locked");
+        LockDialog lock = LockDialog.lock(this, userAccount);
+        if (lock.getSession() == null) {
+            logout();
+            return;
         }
+        sessionToken = lock.getSession().getToken();
+        pinSet = lock.isUnlockedWithPin(); // A password unlock starts a new session without a PIN
+        updateStatus("Unlocked");
     }
 
     /**
-     * Apply Role-Based Access Control
+     * Apply Role-Based Access Control: compile the role to a permission mask once
+     * (PermissionCache) and enable each card whose permission is in it
      */
     private void configureAccess() {
-        String role = userAccount.getRole().toUpperCase();
-
-        if ("STAFF".equals(role)) {
-            // Staff: Can process sales and view products
-            salesButton.setEnabled(true);
-            productsButton.setEnabled(true);
-            inventoryButton.setEnabled(true);
-
-            reportsButton.setEnabled(false);
-            usersButton.setEnabled(false);
-            settingsButton.setEnabled(false);
-
-            setCardDisabled(reportsButton, "Admin Only");
-            setCardDisabled(usersButton, "Admin Only");
-            setCardDisabled(settingsButton, "Admin Only");
-
-        } else if ("ADMIN".equals(role)) {
-            // Admin: Full access
-            salesButton.setEnabled(true);
-            productsButton.setEnabled(true);
-            reportsButton.setEnabled(true);
-            usersButton.setEnabled(true);
-            inventoryButton.setEnabled(true);
-            settingsButton.setEnabled(true);
+        long permissions = PermissionCache.getInstance().prime(userAccount);
 
-        } else {
+        if (permissions == 0) {
             // Unknown role: Lock everything
             disableAllCards();
             JOptionPane.showMessageDialog(
@@ -375,9 +452,27 @@ public class DashboardWindow extends JFrame {
                     "Access Denied",
                     JOptionPane.WARNING_MESSAGE
             );
+        } else {
+            configureCard(salesButton, permissions, Permission.PROCESS_SALES);
+            configureCard(productsButton, permissions, Permission.VIEW_PRODUCTS);
+            configureCard(inventoryButton, permissions, Permission.MANAGE_INVENTORY);
+            configureCard(reportsButton, permissions, Permission.VIEW_REPORTS);
+            configureCard(usersButton, permissions, Permission.MANAGE_USERS);
+            configureCard(settingsButton, permissions, Permission.MANAGE_SETTINGS);
         }
 
-        updateStatus("Access configured for " + role + " role");
+        updateStatus("Access configured for " + userAccount.getRole().toUpperCase() + " role");
+    }
+
+    /**
+     * Enable a card if the permission is in the mask, otherwise lock it
+     */
+    private void configureCard(JButton card, long permissions, Permission required) {
+        if ((permissions & required.bit()) != 0) {
+            card.setEnabled(true);
+        } else {
+            setCardDisabled(card, "Admin Only");
+        }
     }
 
     /**
@@ -434,4 +529,51 @@ public class DashboardWindow extends JFrame {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy  HH:mm:ss");
         clockLabel.setText(now.format(formatter));
     }
-}
\ No newline at end of file
+
+    /**
+     * Subscribe to reorder alerts and load the tracker in the background
+     */
+    private void startLowStockAlerts() {
+        LowStockTracker tracker = LowStockTracker.getInstance();
+        tracker.addListener(lowStockListener);
+        lowStockLoader.load(() -> {
+            tracker.load(new ProductDAO());
+            return tracker.getLowStock();
+        }, this::showLowStock, e -> e.printStackTrace());
+    }
+
+    private void stopLowStockAlerts() {
+        lowStockLoader.cancel();
+        LowStockTracker.getInstance().removeListener(lowStockListener);
+    }
+
+    /**
+     * Show the low-stock count, with the most urgent products in the tooltip
+     */
+    private void showLowStock(List<LowStockTracker.Alert> alerts) {
+        if (alerts.isEmpty()) {
+            lowStockLabel.setVisible(false);
+            return;
+        }
+        lowStockLabel.setText("⚠ " + alerts.size() + (alerts.size() == 1 ? " product" : " products") + " at or below reorder level");
+
+        StringBuilder tip = new StringBuilder("<html><b>Reorder soon</b> (fewest days of stock first)");
+        for (int i = 0; i < alerts.size() && i < LOW_STOCK_TOOLTIP_ROWS; i++) {
+            LowStockTracker.Alert a = alerts.get(i);
+            tip.append("<br>").append(escapeHtml(a.getName()))
+                    .append(" &mdash; ").append(a.getStockQty()).append(" left");
+            if (!Double.isInfinite(a.getDaysOfCover())) {
+                tip.append(String.format(", ~%.1f days", a.getDaysOfCover()));
+            }
+        }
+        if (alerts.size() > LOW_STOCK_TOOLTIP_ROWS) {
+            tip.append("<br>... and ").append(alerts.size() - LOW_STOCK_TOOLTIP_ROWS).append(" more");
+        }
+        lowStockLabel.setToolTipText(tip.append("</html>").toString());
+        lowStockLabel.setVisible(true);
+    }
+
+    private static String escapeHtml(String s) {
+        return s == null ? "" : s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,202 @@
+package ui;
+
+import dao.SaleDAO;
+import dao.SaleDAO.SaleKey;
+import models.Sale;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model over the sales in a date range that only keeps a window of pages in memory.
+ *
+ * The row count comes from a COUNT query; rows are fetched page by page with SaleDAO's
+ * keyset query as the JTable asks for them (i.e. as it scrolls). Rows not loaded yet show
+ * as "Loading..." and are repainted when their page arrives. The most recently used
+ * pages are kept in an LRU (pos.reports.cachedPages, default 20 pages of 200 rows).
+ *
+ * Rows are ordered newest first by the query, so the table must not use a RowSorter
+ * (sorting would read every row).
+ *
+ * EDT only, like any table model.
+ */
+public class LazySalesTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"Sale ID", "Account ID", "Date/Time", "Total Amount", "Payment Method", "Remarks"};
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String LOADING = "Loading...";
+
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = Math.max(2, Integer.getInteger("pos.reports.cachedPages", 20));
+
+    private final SaleDAO saleDAO = new SaleDAO();
+
+    private String startDate = "";
+    private String endDate = "";
+    private int rowCount;
+    private int generation;
+
+    // Page number -> rows, least recently used first
+    private final LinkedHashMap<Integer, List<Sale>> pages = new LinkedHashMap<Integer, List<Sale>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Sale>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // Page number -> key of the last row of the page before it (where the page starts)
+    private final Map<Integer, SaleKey> pageStarts = new HashMap<>();
+    // Pages asked for but not fetched yet, most recent last
+    private final ArrayDeque<Integer> wanted = new ArrayDeque<>();
+    private SwingWorker<List<Sale>, Void> fetching;
+    private int fetchingPage = -1;
+
+    /**
+     * Show a new date range (YYYY-MM-DD, either may be empty) with {@code rowCount} rows,
+     * as counted by {@link SaleDAO#countSalesByDateRange}. Drops every cached page.
+     */
+    public void reset(String startDate, String endDate, int rowCount) {
+        generation++;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.rowCount = rowCount;
+        pages.clear();
+        pageStarts.clear();
+        wanted.clear();
+        if (fetching != null) {
+            fetching.cancel(true);
+            fetching = null;
+            fetchingPage = -1;
+        }
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        // Object, since rows that are still loading hold a placeholder string
+        return Object.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int page = rowIndex / PAGE_SIZE;
+        List<Sale> rows = pages.get(page);
+        if (rows == null) {
+            request(page);
+            return columnIndex == 0 ? LOADING : null;
+        }
+
+        int offset = rowIndex - page * PAGE_SIZE;
+        if (offset >= rows.size()) {
+            return null; // Range shrank since it was counted
+        }
+        Sale s = rows.get(offset);
+        switch (columnIndex) {
+            case 0: return s.getSaleId();
+            case 1: return s.getAccountId();
+            case 2: return s.getSaleDatetime() != null ? s.getSaleDatetime().toLocalDateTime().format(DATE_TIME_FORMATTER) : "N/A";
+            case 3: return s.getTotalCents(); // Formatted by the table's currency renderer
+            case 4: return s.getPaymentMethod();
+            case 5: return s.getRemarks();
+            default: return null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // PAGE FETCHING
+    // ----------------------------------------------------------------------------------
+
+    private void request(int page) {
+        if (page == fetchingPage) {
+            return;
+        }
+        wanted.remove(page);
+        wanted.addLast(page);
+        // Fast scrolling asks for many pages; only the latest ones are still on screen
+        while (wanted.size() > MAX_CACHED_PAGES) {
+            wanted.removeFirst();
+        }
+        fetchNext();
+    }
+
+    /**
+     * Fetch one page at a time, newest request first.
+     */
+    private void fetchNext() {
+        if (fetching != null || wanted.isEmpty()) {
+            return;
+        }
+        int page = wanted.removeLast();
+        if (pages.containsKey(page)) {
+            fetchNext();
+            return;
+        }
+
+        int myGeneration = generation;
+        String start = startDate;
+        String end = endDate;
+        SaleKey knownStart = pageStarts.get(page);
+
+        fetchingPage = page;
+        fetching = new SwingWorker<List<Sale>, Void>() {
+            @Override
+            protected List<Sale> doInBackground() throws Exception {
+                SaleKey after = knownStart;
+                if (page > 0 && after == null) {
+                    // Jumped past pages we never loaded: find where this page starts
+                    after = saleDAO.getSaleKeyAt(start, end, page * PAGE_SIZE - 1);
+                    if (after == null) {
+                        return List.of();
+                    }
+                }
+                return saleDAO.getSalesPage(start, end, after, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                if (myGeneration != generation) {
+                    return; // Filter changed while fetching
+                }
+                fetching = null;
+                fetchingPage = -1;
+                try {
+                    List<Sale> rows = get();
+                    pages.put(page, rows);
+                    if (!rows.isEmpty()) {
+                        pageStarts.put(page + 1, SaleKey.of(rows.get(rows.size() - 1)));
+                    }
+                    int first = page * PAGE_SIZE;
+                    int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+                    if (first <= last) {
+                        fireTableRowsUpdated(first, last);
+                    }
+                } catch (Exception e) {
+                    // Leave the rows as "Loading..."; they are requested again when repainted
+                    e.printStackTrace();
+                }
+                fetchNext();
+            }
+        };
+        fetching.execute();
+    }
+}
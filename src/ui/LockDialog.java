@@ -0,0 +1,138 @@
+package ui;
+
+import dao.SessionManager;
+import models.Account;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Modal lock screen over the whole application. Only the user who locked the terminal can
+ * unlock it, with the PIN set for their session (SessionManager.unlockWithPin, no database
+ * or BCrypt) or with their password (SessionManager.loginAsync, from memory while the
+ * session is live). Another user switches by logging out from here.
+ */
+final class LockDialog extends JDialog {
+
+    private final Account user;
+    private final JPasswordField secretField = new JPasswordField(15);
+    private final JButton unlockButton = new JButton("Unlock");
+    private final JButton logoutButton = new JButton("Log Out");
+
+    private SessionManager.Session session;
+    private boolean unlockedWithPin;
+
+    private LockDialog(Frame owner, Account user) {
+        super(owner, "Terminal Locked", Dialog.ModalityType.APPLICATION_MODAL);
+        this.user = user;
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        JLabel title = new JLabel("🔒 Locked by " + user.getFirstName() + " " + user.getLastName()
+                + " (" + user.getUsername() + ")", SwingConstants.CENTER);
+        title.setFont(new Font("SansSerif", Font.BOLD, 16));
+        panel.add(title, BorderLayout.NORTH);
+
+        JPanel field = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        field.add(new JLabel("PIN or password:"));
+        field.add(secretField);
+        panel.add(field, BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttons.add(unlockButton);
+        buttons.add(logoutButton);
+        panel.add(buttons, BorderLayout.SOUTH);
+
+        add(panel);
+        pack();
+        setLocationRelativeTo(owner);
+        getRootPane().setDefaultButton(unlockButton);
+
+        unlockButton.addActionListener(e -> attemptUnlock());
+        logoutButton.addActionListener(e -> dispose());
+    }
+
+    /**
+     * Lock until the user unlocks or chooses to log out (blocks, like any modal dialog).
+     * @return the closed dialog; its {@link #getSession} is null if the user chose to log out
+     */
+    static LockDialog lock(Frame owner, Account user) {
+        LockDialog dialog = new LockDialog(owner, user);
+        dialog.setVisible(true);
+        return dialog;
+    }
+
+    SessionManager.Session getSession() {
+        return session;
+    }
+
+    boolean isUnlockedWithPin() {
+        return unlockedWithPin;
+    }
+
+    private void attemptUnlock() {
+        char[] chars = secretField.getPassword();
+        String secret = new String(chars);
+        Arrays.fill(chars, ' ');
+        secretField.setText("");
+        if (secret.isEmpty()) {
+            return;
+        }
+
+        SessionManager sessions = SessionManager.getInstance();
+        SessionManager.Session unlocked = sessions.unlockWithPin(user.getUsername(), secret);
+        if (unlocked != null) {
+            unlockedWithPin = true;
+            finish(unlocked);
+            return;
+        }
+
+        // Not the PIN (or none is set any more): try it as the password, off the EDT
+        setBusy(true);
+        sessions.loginAsync(user.getUsername(), secret).whenComplete((s, error) ->
+                SwingUtilities.invokeLater(() -> passwordChecked(s, error)));
+    }
+
+    private void passwordChecked(SessionManager.Session s, Throwable error) {
+        setBusy(false);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof RejectedExecutionException)) {
+                cause.printStackTrace();
+            }
+            JOptionPane.showMessageDialog(this,
+                    cause instanceof RejectedExecutionException
+                            ? "The system is busy. Please try again in a moment."
+                            : "Could not check the password. See console for details.",
+                    "Unlock Failed",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (s == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Incorrect PIN or password.\nAfter too many wrong PINs, or once the session has expired, use your password.",
+                    "Unlock Failed",
+                    JOptionPane.ERROR_MESSAGE);
+            secretField.requestFocusInWindow();
+            return;
+        }
+        finish(s);
+    }
+
+    private void finish(SessionManager.Session s) {
+        session = s;
+        dispose();
+    }
+
+    private void setBusy(boolean busy) {
+        unlockButton.setEnabled(!busy);
+        logoutButton.setEnabled(!busy);
+        secretField.setEnabled(!busy);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+}
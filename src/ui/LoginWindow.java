@@ -1,6 +1,6 @@
 package ui;
 
-import dao.AccountDAO;
+import dao.SessionManager;
 import models.Account;
 
 import javax.swing.*;
@@ -8,6 +8,8 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent; // For mnemonic (Alt key shortcut)
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class LoginWindow extends JFrame {
     private JTextField usernameField;
@@ -111,41 +113,72 @@ public class LoginWindow extends JFrame {
             return;
         }
 
-        // Database logic
+        // Database logic: lookup and BCrypt check run on the verification pool, not the EDT
+        setLoginInProgress(true);
         try {
-            AccountDAO dao = new AccountDAO();
-            Account acc = dao.login(username, password);
+            // Repeat logins within the session TTL are checked from memory (see SessionManager)
+            SessionManager.getInstance().loginAsync(username, password).whenComplete((session, error) ->
+                    SwingUtilities.invokeLater(() -> loginFinished(session, error)));
+        } finally {
+            // Securely overwrite the password array after use
+            java.util.Arrays.fill(passwordChars, ' ');
+        }
+    }
 
-            if (acc != null) {
-                // Success
-                JOptionPane.showMessageDialog(this,
-                        "Welcome, " + acc.getFirstName() + "!",
-                        "Login Successful",
-                        JOptionPane.INFORMATION_MESSAGE);
+    /**
+     * Handle the login result (on the EDT).
+     */
+    private void loginFinished(SessionManager.Session session, Throwable error) {
+        setLoginInProgress(false);
 
-                dispose(); // Close login window
-                new DashboardWindow(acc).setVisible(true); // Open main application
-            } else {
-                // Failure
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
                 JOptionPane.showMessageDialog(this,
-                        "Invalid username or password. Please try again.",
-                        "Login Failed",
-                        JOptionPane.ERROR_MESSAGE);
-
-                // Clear password field for security on failed attempt
-                passwordField.setText("");
-                usernameField.requestFocusInWindow(); // Focus back to username field
+                        "Many users are logging in right now. Please try again in a moment.",
+                        "System Busy",
+                        JOptionPane.WARNING_MESSAGE);
+                return;
             }
-        } catch (Exception ex) {
-            ex.printStackTrace();
+            cause.printStackTrace();
             JOptionPane.showMessageDialog(this,
                     "A database error occurred. See console for details.",
                     "System Error",
                     JOptionPane.ERROR_MESSAGE);
-        } finally {
-            // Securely overwrite the password string/array after use
-            java.util.Arrays.fill(passwordChars, ' ');
+            return;
         }
+
+        if (session != null) {
+            // Success
+            Account acc = session.getAccount();
+            JOptionPane.showMessageDialog(this,
+                    "Welcome, " + acc.getFirstName() + "!",
+                    "Login Successful",
+                    JOptionPane.INFORMATION_MESSAGE);
+
+            dispose(); // Close login window
+            new DashboardWindow(acc, session.getToken()).setVisible(true); // Open main application (Lock uses the token)
+        } else {
+            // Failure
+            JOptionPane.showMessageDialog(this,
+                    "Invalid username or password. Please try again.",
+                    "Login Failed",
+                    JOptionPane.ERROR_MESSAGE);
+
+            // Clear password field for security on failed attempt
+            passwordField.setText("");
+            usernameField.requestFocusInWindow(); // Focus back to username field
+        }
+    }
+
+    /**
+     * Lock the form while a login is being checked
+     */
+    private void setLoginInProgress(boolean inProgress) {
+        loginButton.setEnabled(!inProgress);
+        usernameField.setEnabled(!inProgress);
+        passwordField.setEnabled(!inProgress);
+        setCursor(inProgress ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
     }
 
     // Example main method for testing (Optional, but good practice)
@@ -1,6 +1,9 @@
 package ui;
 
 import dao.ProductDAO;
+import models.Account;
+import models.Money;
+import models.Permission;
 import models.Product;
 import java.awt.event.KeyAdapter; // <--- ADD THIS IMPORT
 import java.awt.event.KeyEvent;
@@ -11,14 +14,19 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ProductManagementWindow extends JFrame {
     private JTable productTable;
     private JButton addButton, editButton, deleteButton, refreshButton;
     private DefaultTableModel tableModel;
+    private final AsyncLoader<List<Object[]>> productLoader = new AsyncLoader<>();
+    private final Account currentUser;
+
+    public ProductManagementWindow(Account currentUser) {
+        this.currentUser = currentUser;
 
-    public ProductManagementWindow() {
         // --- Frame Setup ---
         setTitle("📦 Product Inventory Management");
         setSize(850, 550); // Larger window for better data display
@@ -82,41 +90,45 @@ public class ProductManagementWindow extends JFrame {
 
 
     private void refreshProducts(ActionEvent e) {
-        tableModel.setRowCount(0);
-        ProductDAO dao = new ProductDAO();
-        try {
-            List<Product> products = dao.getAllProducts();
-            for (Product p : products) {
-                tableModel.addRow(new Object[]{
-                        p.getProductId(),
-                        p.getSku(),
-                        p.getName(),
-                        p.getCategory(),
+        productLoader.load(() -> {
+            // Only the listed columns, fresh from the database (other terminals' edits included)
+            ProductDAO dao = new ProductDAO();
+            List<ProductDAO.ProductListing> products = dao.listActiveProducts(ProductDAO.LISTING);
+            List<Object[]> rows = new ArrayList<>(products.size());
+            for (ProductDAO.ProductListing p : products) {
+                rows.add(new Object[]{
+                        p.productId(),
+                        p.sku(),
+                        p.name(),
+                        p.category(),
                         // Format price for display
-                        String.format("%.2f", p.getPrice()),
-                        p.getStockQty()
+                        Money.format(p.priceCents()),
+                        p.stockQty()
                 });
             }
-        } catch (Exception ex) {
+            return rows;
+        }, rows -> AsyncLoader.replaceRows(tableModel, rows), ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error loading products: " + ex.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void addProduct(ActionEvent e) {
+        if (!AccessGuard.require(this, currentUser, Permission.MANAGE_PRODUCTS)) return;
         // Open the dialog with a null product to indicate ADD mode
         new ProductFormDialog(this, null).setVisible(true);
         refreshProducts(null); // Refresh table after dialog closes
     }
 
     private void editProduct(ActionEvent e) {
+        if (!AccessGuard.require(this, currentUser, Permission.MANAGE_PRODUCTS)) return;
         int row = productTable.getSelectedRow();
         if (row >= 0) {
             try {
                 // Get the ID from the first column (index 0)
                 int id = Integer.parseInt(tableModel.getValueAt(row, 0).toString());
                 ProductDAO dao = new ProductDAO();
-                Product productToEdit = dao.getProductById(id); // ASSUMES ProductDAO has getProductById method
+                Product productToEdit = dao.getProductForEdit(id); // Fresh row, not the cached copy
 
                 if (productToEdit != null) {
                     // Open the dialog with the retrieved product
@@ -135,6 +147,7 @@ public class ProductManagementWindow extends JFrame {
     }
 
     private void deleteProduct(ActionEvent e) {
+        if (!AccessGuard.require(this, currentUser, Permission.MANAGE_PRODUCTS)) return;
         int row = productTable.getSelectedRow();
         if (row >= 0) {
             int id = Integer.parseInt(tableModel.getValueAt(row, 0).toString());
@@ -263,7 +276,7 @@ class ProductFormDialog extends JDialog {
     private void loadProductData() {
         skuField.setText(product.getSku());
         nameField.setText(product.getName());
-        priceField.setText(String.format("%.2f", product.getPrice()));
+        priceField.setText(Money.format(product.getPriceCents()));
         stockField.setText(String.valueOf(product.getStockQty()));
         categoryComboBox.setSelectedItem(product.getCategory());
     }
@@ -275,10 +288,10 @@ class ProductFormDialog extends JDialog {
             return;
         }
 
-        double price;
+        long priceCents;
         int stock;
         try {
-            price = Double.parseDouble(priceField.getText().trim());
+            priceCents = Money.parse(priceField.getText());
             stock = Integer.parseInt(stockField.getText().trim().isEmpty() ? "0" : stockField.getText().trim());
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Price and Stock must be valid numbers.", "Format Error", JOptionPane.ERROR_MESSAGE);
@@ -297,7 +310,7 @@ class ProductFormDialog extends JDialog {
             product.setSku(skuField.getText().trim());
             product.setName(nameField.getText().trim());
             product.setCategory((String) categoryComboBox.getSelectedItem());
-            product.setPrice(price);
+            product.setPriceCents(priceCents);
             product.setStockQty(stock);
 
             // Execute DAO operation
@@ -1,17 +1,20 @@
 package ui;
 
 import dao.ProductDAO;
+import models.Money;
 import models.Product;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ProductsWindow extends JFrame {
     private JTable productTable;
     private DefaultTableModel tableModel;
+    private final AsyncLoader<List<Object[]>> productLoader = new AsyncLoader<>();
     private JButton addButton, editButton, deleteButton, refreshButton;
 
     public ProductsWindow() {
@@ -52,27 +55,27 @@ public class ProductsWindow extends JFrame {
     }
 
     private void refreshData(ActionEvent e) {
-        try {
-            tableModel.setRowCount(0);
+        productLoader.load(() -> {
             ProductDAO dao = new ProductDAO();
             List<Product> products = dao.getAllProducts();
-
+            List<Object[]> rows = new ArrayList<>(products.size());
             for (Product p : products) {
-                tableModel.addRow(new Object[]{
+                rows.add(new Object[]{
                         p.getProductId(),
                         p.getSku(),
                         p.getName(),
                         p.getCategory(),
-                        p.getPrice(),
-                        p.getCost(),
+                        Money.format(p.getPriceCents()),
+                        Money.format(p.getCostCents()),
                         p.getStockQty(),
                         p.getReorderLevel()
                 });
             }
-        } catch (Exception ex) {
+            return rows;
+        }, rows -> AsyncLoader.replaceRows(tableModel, rows), ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error loading products.");
-        }
+        });
     }
 
     private void addProduct(ActionEvent e) {
@@ -83,8 +86,8 @@ public class ProductsWindow extends JFrame {
                 Product product = new Product();
                 product.setName(name);
                 product.setSku("SKU-" + System.currentTimeMillis()); // auto SKU
-                product.setPrice(0.0);
-                product.setCost(0.0);
+                product.setPriceCents(0);
+                product.setCostCents(0);
                 product.setStockQty(0);
                 dao.addProduct(product);
                 refreshData(null);
@@ -102,7 +105,7 @@ public class ProductsWindow extends JFrame {
             if (newName != null) {
                 try {
                     ProductDAO dao = new ProductDAO();
-                    Product product = dao.getProductById(productId);
+                    Product product = dao.getProductForEdit(productId);
                     product.setName(newName);
                     dao.updateProduct(product);
                     refreshData(null);
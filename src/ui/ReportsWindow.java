@@ -1,20 +1,23 @@
 package ui;
 
 import dao.SaleDAO;
-import models.Sale;
-import pdf_export.PDFExporter;
+import dao.SalesRollupDAO;
+import models.Account;
+import models.Money;
+import models.Permission;
+import pdf_export.ExportJobService;
+import pdf_export.ExportJobService.ExportJob;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 public class ReportsWindow extends JFrame {
 
@@ -26,11 +29,16 @@ public class ReportsWindow extends JFrame {
 
     // --- UI Components ---
     private JTable salesTable;
-    private DefaultTableModel tableModel;
+    private LazySalesTableModel tableModel;
     private JTextField startDateField, endDateField;
     private JLabel totalSalesLabel; // New component for displaying total amount
+    private JPanel exportJobsPanel; // One row per running/queued background export
+    private final AsyncLoader<ReportData> salesLoader = new AsyncLoader<>();
+    private final Account currentUser;
+
+    public ReportsWindow(Account currentUser) {
+        this.currentUser = currentUser;
 
-    public ReportsWindow() {
         // --- Frame Setup ---
         setTitle("📊 Sales Reports and Analysis");
         setSize(1200, 700); // Increased size
@@ -44,23 +52,10 @@ public class ReportsWindow extends JFrame {
         add(filterPanel, BorderLayout.NORTH);
 
         // --- 2. Table Setup (CENTER) ---
-        String[] cols = {"Sale ID", "Account ID", "Date/Time", "Total Amount", "Payment Method", "Remarks"};
-        tableModel = new DefaultTableModel(cols, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-            // Use correct column types for sorting/rendering
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 0 || columnIndex == 1) return Integer.class; // IDs
-                if (columnIndex == 3) return Double.class; // Total Amount for sorting
-                return super.getColumnClass(columnIndex);
-            }
-        };
+        // Rows are paged in from the database as the table scrolls (newest first)
+        tableModel = new LazySalesTableModel();
         salesTable = new JTable(tableModel);
-        // Enable row sorting
-        salesTable.setAutoCreateRowSorter(true);
+        // No row sorter: sorting would have to load every sale; the query orders by date
 
         formatTableColumns();
 
@@ -79,16 +74,25 @@ public class ReportsWindow extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 5));
         JButton refreshButton = new JButton("🔄 Refresh Data");
         JButton exportPDFButton = new JButton("📄 Export to PDF");
+        JButton exportCSVButton = new JButton("📑 Export to CSV");
 
         buttonPanel.add(refreshButton);
         buttonPanel.add(exportPDFButton);
+        buttonPanel.add(exportCSVButton);
 
         southPanel.add(buttonPanel, BorderLayout.EAST);
+
+        // Background export progress rows
+        exportJobsPanel = new JPanel();
+        exportJobsPanel.setLayout(new BoxLayout(exportJobsPanel, BoxLayout.Y_AXIS));
+        southPanel.add(exportJobsPanel, BorderLayout.SOUTH);
+
         add(southPanel, BorderLayout.SOUTH);
 
         // --- 4. Actions ---
         refreshButton.addActionListener(this::refreshData);
-        exportPDFButton.addActionListener(this::exportPDF);
+        exportPDFButton.addActionListener(e -> startExport(ExportJobService.Format.PDF));
+        exportCSVButton.addActionListener(e -> startExport(ExportJobService.Format.CSV));
 
         // Initial Load
         refreshData(null);
@@ -130,8 +134,8 @@ public class ReportsWindow extends JFrame {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                                                            boolean isSelected, boolean hasFocus, int row, int column) {
-                if (value instanceof Double) {
-                    value = String.format("$%.2f", (Double) value);
+                if (value instanceof Long) {
+                    value = "$" + Money.format((Long) value); // Cents
                 }
                 setHorizontalAlignment(SwingConstants.RIGHT);
                 return super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
@@ -139,6 +143,8 @@ public class ReportsWindow extends JFrame {
         };
 
         // Apply Renderers
+        salesTable.getColumnModel().getColumn(0).setCellRenderer(rightRenderer);   // Sale ID
+        salesTable.getColumnModel().getColumn(1).setCellRenderer(rightRenderer);   // Account ID
         salesTable.getColumnModel().getColumn(3).setCellRenderer(currencyRenderer); // Total Amount
         salesTable.getColumnModel().getColumn(2).setCellRenderer(centerRenderer);  // Date/Time
 
@@ -150,11 +156,22 @@ public class ReportsWindow extends JFrame {
         salesTable.getColumnModel().getColumn(4).setPreferredWidth(100); // Payment Method
     }
 
-    private void updateSummary(List<Sale> sales) {
-        double totalAmount = sales.stream()
-                .mapToDouble(Sale::getTotalAmount)
-                .sum();
-        totalSalesLabel.setText(String.format("Total Sales Amount: $%.2f (Showing %d Records)", totalAmount, sales.size()));
+    /**
+     * Show the rollup total with the row count of the table. If the rollup counts a different
+     * number of sales it has drifted (or was never backfilled), so say so.
+     */
+    private void updateSummary(int rowCount, SalesRollupDAO.Totals totals) {
+        String text = "Total Sales Amount: $" + Money.format(totals.getTotalCents()) + " (" + rowCount + " Records)";
+        if (totals.getSaleCount() != rowCount) {
+            totalSalesLabel.setText(text + " — totals may be stale, run RebuildSalesRollup");
+            totalSalesLabel.setForeground(new Color(192, 57, 43));
+            totalSalesLabel.setToolTipText("The daily totals count " + totals.getSaleCount()
+                    + " sales for these dates, the sales table " + rowCount);
+        } else {
+            totalSalesLabel.setText(text);
+            totalSalesLabel.setForeground(UIManager.getColor("Label.foreground"));
+            totalSalesLabel.setToolTipText(null);
+        }
     }
 
     // ----------------------------------------------------------------------------------
@@ -162,8 +179,7 @@ public class ReportsWindow extends JFrame {
     // ----------------------------------------------------------------------------------
 
     private void refreshData(ActionEvent e) {
-        tableModel.setRowCount(0);
-        double totalSales = 0.0;
+        if (!AccessGuard.require(this, currentUser, Permission.VIEW_REPORTS)) return;
         String startDateStr = startDateField.getText().trim();
         String endDateStr = endDateField.getText().trim();
 
@@ -177,44 +193,36 @@ public class ReportsWindow extends JFrame {
             return;
         }
 
-        // 2. Adjust dates for proper SQL querying (e.g., to cover the entire day)
-        String sqlStartDate = startDateStr.isEmpty() ? "" : startDateStr + " 00:00:00";
-        String sqlEndDate = endDateStr.isEmpty() ? "" : endDateStr + " 23:59:59";
-
-
-        try {
-            SaleDAO saleDAO = new SaleDAO();
-            List<Sale> sales = saleDAO.getSalesByDateRange(sqlStartDate, sqlEndDate);
-
-            for (Sale s : sales) {
-                // Sum for summary
-                totalSales += s.getTotalAmount();
-
-                // Format total amount: pass as Double for correct sorting, display via Renderer
-                Double totalAmount = s.getTotalAmount();
-
-                // Format Date/Time
-                String formattedDate = s.getSaleDatetime() != null ?
-                        s.getSaleDatetime().toGMTString() :
-                        "N/A";
-
-                tableModel.addRow(new Object[]{
-                        s.getSaleId(),
-                        s.getAccountId(),
-                        formattedDate,
-                        totalAmount, // Pass Double value
-                        s.getPaymentMethod(),
-                        s.getRemarks()
-                });
-            }
-
-            // Update Summary
-            updateSummary(sales);
-
-        } catch (Exception ex) {
+        totalSalesLabel.setText("Loading sales...");
+        totalSalesLabel.setForeground(UIManager.getColor("Label.foreground"));
+        totalSalesLabel.setToolTipText(null);
+
+        // 2. Count and total off the EDT; the table then pages rows in as it scrolls. The row
+        //    count comes from the sales table itself (the rollups may lag or miss imported rows);
+        //    the summary total uses the daily rollup and is flagged if its count differs. The DAOs take plain YYYY-MM-DD dates and cover
+        //    the whole end day.
+        salesLoader.load(() -> new ReportData(
+                new SaleDAO().countSalesByDateRange(startDateStr, endDateStr),
+                new SalesRollupDAO().getTotals(startDateStr, endDateStr)), data -> {
+            tableModel.reset(startDateStr, endDateStr, data.rowCount);
+            updateSummary(data.rowCount, data.totals);
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error loading sales data: " + ex.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
             totalSalesLabel.setText("Total Sales Amount: $0.00 (Error Loading)");
+        });
+    }
+
+    /**
+     * Row count and summary for one filter, loaded together off the EDT.
+     */
+    private static final class ReportData {
+        final int rowCount;
+        final SalesRollupDAO.Totals totals;
+
+        ReportData(int rowCount, SalesRollupDAO.Totals totals) {
+            this.rowCount = rowCount;
+            this.totals = totals;
         }
     }
 
@@ -229,82 +237,156 @@ public class ReportsWindow extends JFrame {
         }
     }
 
-    private void exportPDF(ActionEvent e) {
-        if (tableModel.getRowCount() == 0) {
-            JOptionPane.showMessageDialog(this, "No data to export. Refresh the report first.", "Export Failed", JOptionPane.WARNING_MESSAGE);
+    /**
+     * Ask for a target file and queue the export on ExportJobService. The export reads the
+     * sales for the current date filter straight from the database, so the window stays
+     * responsive and several exports can run at once.
+     */
+    private void startExport(ExportJobService.Format format) {
+        if (!AccessGuard.require(this, currentUser, Permission.EXPORT_REPORTS)) return;
+        String startDateStr = startDateField.getText().trim();
+        String endDateStr = endDateField.getText().trim();
+        if ((!startDateStr.isEmpty() && !isValidDate(startDateStr)) || (!endDateStr.isEmpty() && !isValidDate(endDateStr))) {
+            JOptionPane.showMessageDialog(this, "Invalid date format. Please use YYYY-MM-DD.", "Input Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        try {
-            JFileChooser fileChooser = new JFileChooser();
+        String extension = format == ExportJobService.Format.PDF ? ".pdf" : ".csv";
+
+        JFileChooser fileChooser = new JFileChooser();
 
-            // Set the current directory to user's Documents folder or current directory
-            fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+        // Set the current directory to user's Documents folder or current directory
+        fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
 
-            String defaultFileName = "sales_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm")) + ".pdf";
-            fileChooser.setSelectedFile(new File(defaultFileName));
+        String defaultFileName = "sales_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm")) + extension;
+        fileChooser.setSelectedFile(new File(defaultFileName));
 
-            // Add file filter for PDF files
+        if (format == ExportJobService.Format.PDF) {
             fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("PDF Documents (*.pdf)", "pdf"));
+        } else {
+            fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV Files (*.csv)", "csv"));
+        }
 
-            int option = fileChooser.showSaveDialog(this);
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
 
-            if (option == JFileChooser.APPROVE_OPTION) {
-                File file = fileChooser.getSelectedFile();
-                String filePath = file.getAbsolutePath();
+        File file = fileChooser.getSelectedFile();
+        // Ensure the right extension
+        if (!file.getName().toLowerCase().endsWith(extension)) {
+            file = new File(file.getAbsolutePath() + extension);
+        }
 
-                // Ensure .pdf extension
-                if (!filePath.toLowerCase().endsWith(".pdf")) {
-                    filePath += ".pdf";
-                    file = new File(filePath);
-                }
+        ExportJobRow row = new ExportJobRow(format + " → " + file.getName());
+        try {
+            row.job = ExportJobService.getInstance().submit(format, startDateStr, endDateStr, file.toPath(), row);
+        } catch (RejectedExecutionException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Too many exports are already running. Please wait for one to finish.",
+                    "Export Busy",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        exportJobsPanel.add(row.panel);
+        exportJobsPanel.revalidate();
+        exportJobsPanel.repaint();
+    }
 
-                // Pass the raw filter dates (YYYY-MM-DD) for the PDF header
-                PDFExporter.exportSalesToPDF(
-                        salesTable,
-                        filePath,
-                        startDateField.getText().trim(),
-                        endDateField.getText().trim()
+    private void exportFinished(ExportJobRow row, Exception error) {
+        exportJobsPanel.remove(row.panel);
+        exportJobsPanel.revalidate();
+        exportJobsPanel.repaint();
+
+        ExportJob job = row.job;
+        File file = job.getTarget().toFile();
+
+        switch (job.getState()) {
+            case DONE: {
+                // Show success message with clickable path
+                int result = JOptionPane.showConfirmDialog(
+                        this,
+                        job.getFormat() + " Exported Successfully! (" + job.getRowsWritten() + " records)\n\nFile saved to:\n"
+                                + file.getAbsolutePath() + "\n\nWould you like to open the folder?",
+                        "Export Success",
+                        JOptionPane.YES_NO_OPTION,
+                        JOptionPane.INFORMATION_MESSAGE
                 );
 
-                // Verify file was created
-                if (file.exists()) {
-                    // Show success message with clickable path
-                    int result = JOptionPane.showConfirmDialog(
-                            this,
-                            "PDF Exported Successfully!\n\nFile saved to:\n" + filePath + "\n\nWould you like to open the folder?",
-                            "Export Success",
-                            JOptionPane.YES_NO_OPTION,
-                            JOptionPane.INFORMATION_MESSAGE
-                    );
-
-                    // Open folder if user clicks Yes
-                    if (result == JOptionPane.YES_OPTION) {
-                        try {
-                            Desktop.getDesktop().open(file.getParentFile());
-                        } catch (Exception ex) {
-                            JOptionPane.showMessageDialog(this,
-                                    "File saved but couldn't open folder automatically.\nPath: " + filePath,
-                                    "Info",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                        }
+                // Open folder if user clicks Yes
+                if (result == JOptionPane.YES_OPTION) {
+                    try {
+                        Desktop.getDesktop().open(file.getParentFile());
+                    } catch (Exception ex) {
+                        JOptionPane.showMessageDialog(this,
+                                "File saved but couldn't open folder automatically.\nPath: " + file.getAbsolutePath(),
+                                "Info",
+                                JOptionPane.INFORMATION_MESSAGE);
                     }
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Export completed but file verification failed.\nExpected location: " + filePath,
-                            "Warning",
-                            JOptionPane.WARNING_MESSAGE);
                 }
+                break;
             }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error exporting to PDF: " + ex.getMessage() + "\n\nPlease check:\n" +
-                            "1. You have write permissions to the selected folder\n" +
-                            "2. The file is not already open in another program\n" +
-                            "3. There is enough disk space",
-                    "Export Error",
-                    JOptionPane.ERROR_MESSAGE);
+            case FAILED:
+                JOptionPane.showMessageDialog(this,
+                        "Error exporting to " + job.getFormat() + ": " + (error != null ? error.getMessage() : "unknown error") + "\n\nPlease check:\n" +
+                                "1. You have write permissions to the selected folder\n" +
+                                "2. The file is not already open in another program\n" +
+                                "3. There is enough disk space",
+                        "Export Error",
+                        JOptionPane.ERROR_MESSAGE);
+                break;
+            default:
+                // Cancelled by the user: nothing was written
+                break;
+        }
+    }
+
+    /**
+     * Progress row for one background export. Callbacks arrive on the export thread and
+     * are forwarded to the EDT; progress updates are coalesced so a fast export does not
+     * flood the event queue.
+     */
+    private class ExportJobRow implements ExportJobService.JobListener {
+        final JPanel panel = new JPanel(new BorderLayout(10, 0));
+        final JProgressBar progressBar = new JProgressBar();
+        private volatile boolean updateScheduled;
+        ExportJob job;
+
+        ExportJobRow(String title) {
+            progressBar.setIndeterminate(true);
+            progressBar.setStringPainted(true);
+            progressBar.setString("Queued");
+
+            JButton cancelButton = new JButton("Cancel");
+            cancelButton.addActionListener(e -> {
+                cancelButton.setEnabled(false);
+                progressBar.setString("Cancelling...");
+                job.cancel();
+            });
+
+            panel.setBorder(new EmptyBorder(4, 0, 0, 0));
+            panel.add(new JLabel(title), BorderLayout.WEST);
+            panel.add(progressBar, BorderLayout.CENTER);
+            panel.add(cancelButton, BorderLayout.EAST);
+        }
+
+        @Override
+        public void onProgress(ExportJob job, long rowsWritten) {
+            if (updateScheduled) {
+                return;
+            }
+            updateScheduled = true;
+            SwingUtilities.invokeLater(() -> {
+                updateScheduled = false;
+                if (job.getState() == ExportJobService.State.RUNNING) {
+                    progressBar.setString(job.getRowsWritten() + " records written");
+                }
+            });
+        }
+
+        @Override
+        public void onFinished(ExportJob job, Exception error) {
+            SwingUtilities.invokeLater(() -> exportFinished(this, error));
         }
     }
 }
\ No newline at end of file
@@ -1,38 +1,58 @@
 package ui;
 
 
+import dao.InsufficientStockException;
 import dao.ProductDAO;
 import dao.SaleDAO;
+import dao.SkuIndex;
 import models.Account;
+import models.Cart;
+import models.Money;
 import models.Product;
 import models.Sale;
-import models.SaleItem;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.util.ArrayList;
+import java.awt.Toolkit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.Vector;
 
 public class SalesWindow extends JFrame {
 
+    // Scanner input auto-submits after this much idle time when the SKU is unambiguous
+    private static final int SCAN_IDLE_SUBMIT_MS = 120;
+
+    private JTextField scanField;
     private JComboBox<String> productDropdown;
     private JTextField qtyField;
     private JButton addButton, completeSaleButton, removeItemButton;
     private JTable cartTable;
-    private DefaultTableModel cartModel;
+    private CartTableModel cartModel;
     private JLabel totalLabel;
 
     private Account currentUser;
-    private List<SaleItem> cartItems = new ArrayList<>();
+    private final Cart cart = new Cart();
+    // client_ref of the cart's last failed submit, reused when it is resubmitted so a sale
+    // that was saved after all is not saved twice; cleared on success or any cart change
+    private String pendingClientRef;
     private Map<String, Product> productMap = new HashMap<>();
+    private SkuIndex skuIndex;
+    private final Segment scanSegment = new Segment();
+    private Timer scanTimer;
+    private final AsyncLoader<CatalogSnapshot> catalogLoader = new AsyncLoader<>();
 
     public SalesWindow(Account user) {
         this.currentUser = user;
@@ -46,6 +66,9 @@ public class SalesWindow extends JFrame {
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         topPanel.setBorder(BorderFactory.createTitledBorder("Add Product"));
 
+        scanField = new JTextField(14);
+        scanField.setToolTipText("Scan or type a SKU and press Enter");
+
         productDropdown = new JComboBox<>();
         productDropdown.setPreferredSize(new Dimension(300, 30));
 
@@ -55,6 +78,8 @@ public class SalesWindow extends JFrame {
         addButton.setForeground(Color.WHITE);
         addButton.setFocusPainted(false);
 
+        topPanel.add(new JLabel("Scan SKU:"));
+        topPanel.add(scanField);
         topPanel.add(new JLabel("Product:"));
         topPanel.add(productDropdown);
         topPanel.add(new JLabel("Qty:"));
@@ -62,13 +87,7 @@ public class SalesWindow extends JFrame {
         topPanel.add(addButton);
 
         // === Cart table ===
-        String[] cols = {"Product ID", "Name", "Qty", "Price", "Subtotal"};
-        cartModel = new DefaultTableModel(cols, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
-            }
-        };
+        cartModel = new CartTableModel(cart); // Read-only, one row event per cart change
         cartTable = new JTable(cartModel);
         cartTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         cartTable.getTableHeader().setReorderingAllowed(false);
@@ -116,26 +135,60 @@ public class SalesWindow extends JFrame {
 
         // Enter key to add to cart
         qtyField.addActionListener(e -> addToCart());
+
+        // Barcode scanners type the SKU followed by Enter; scanners without an Enter
+        // suffix are handled by submitting once input pauses on an unambiguous SKU
+        scanTimer = new Timer(SCAN_IDLE_SUBMIT_MS, e -> autoSubmitScan());
+        scanTimer.setRepeats(false);
+        scanField.addActionListener(e -> submitScan());
+        scanField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { scanTimer.restart(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { scanTimer.restart(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { }
+        });
+        scanField.requestFocusInWindow();
     }
 
     private void loadProducts() {
-        try {
+        productDropdown.setEnabled(false);
+        catalogLoader.load(() -> {
             ProductDAO dao = new ProductDAO();
             List<Product> products = dao.getAllProducts();
 
-            productDropdown.addItem("-- Select Product --");
-
+            CatalogSnapshot catalog = new CatalogSnapshot();
+            catalog.labels.add("-- Select Product --");
             for (Product p : products) {
                 String displayText = p.getSku() + " - " + p.getName() + " (₱" +
-                        String.format("%.2f", p.getPrice()) + ")";
-                productDropdown.addItem(displayText);
-                productMap.put(displayText, p);
+                        Money.format(p.getPriceCents()) + ")";
+                catalog.labels.add(displayText);
+                catalog.productMap.put(displayText, p);
             }
-        } catch (Exception e) {
+
+            catalog.skuIndex = SkuIndex.build(dao);
+            return catalog;
+        }, catalog -> {
+            productDropdown.setModel(new DefaultComboBoxModel<>(catalog.labels));
+            productDropdown.setEnabled(true);
+            productMap = catalog.productMap;
+            skuIndex = catalog.skuIndex;
+        }, e -> {
             e.printStackTrace();
+            productDropdown.setEnabled(true);
             JOptionPane.showMessageDialog(this, "Error loading products: " + e.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
+    }
+
+    /**
+     * Product list, dropdown labels and SKU index, built together off the EDT.
+     */
+    private static final class CatalogSnapshot {
+        final Vector<String> labels = new Vector<>();
+        final Map<String, Product> productMap = new HashMap<>();
+        SkuIndex skuIndex;
     }
 
     private void addToCart() {
@@ -160,53 +213,63 @@ public class SalesWindow extends JFrame {
             return;
         }
 
-        // Check if product already in cart
-        boolean found = false;
-        for (int i = 0; i < cartModel.getRowCount(); i++) {
-            int productId = (int) cartModel.getValueAt(i, 0);
-            if (productId == product.getProductId()) {
-                // Update quantity
-                int oldQty = (int) cartModel.getValueAt(i, 2);
-                int newQty = oldQty + qty;
-                double subtotal = product.getPrice() * newQty;
-
-                cartModel.setValueAt(newQty, i, 2);
-                cartModel.setValueAt(subtotal, i, 4);
-
-                // Update cart items list
-                for (SaleItem item : cartItems) {
-                    if (item.getProductId() == product.getProductId()) {
-                        item.setQty(newQty);
-                        break;
-                    }
-                }
-
-                found = true;
-                break;
+        addToCart(product, qty);
+        qtyField.setText("");
+        qtyField.requestFocus();
+    }
+
+    /**
+     * Enter pressed in the scan field (or sent by the scanner).
+     */
+    private void submitScan() {
+        scanTimer.stop();
+        try {
+            Document doc = scanField.getDocument();
+            doc.getText(0, doc.getLength(), scanSegment);
+            int from = 0;
+            int to = scanSegment.length();
+            // Trim without creating a new String
+            while (from < to && Character.isWhitespace(scanSegment.charAt(from))) from++;
+            while (to > from && Character.isWhitespace(scanSegment.charAt(to - 1))) to--;
+            if (from == to || skuIndex == null) {
+                return;
             }
+
+            Product product = skuIndex.lookup(scanSegment, from, to);
+            if (product == null) {
+                Toolkit.getDefaultToolkit().beep();
+                scanField.selectAll();
+                return;
+            }
+
+            addToCart(product, 1);
+            scanField.setText("");
+        } catch (Exception e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error looking up SKU: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
         }
+    }
 
-        if (!found) {
-            // Add new item
-            double subtotal = product.getPrice() * qty;
-            cartModel.addRow(new Object[]{
-                    product.getProductId(),
-                    product.getName(),
-                    qty,
-                    String.format("%.2f", product.getPrice()),
-                    String.format("%.2f", subtotal)
-            });
-
-            SaleItem item = new SaleItem();
-            item.setProductId(product.getProductId());
-            item.setQty(qty);
-            item.setPrice(product.getPrice());
-            cartItems.add(item);
+    private void autoSubmitScan() {
+        if (skuIndex == null) return;
+        try {
+            Document doc = scanField.getDocument();
+            doc.getText(0, doc.getLength(), scanSegment);
+        } catch (BadLocationException e) {
+            return;
         }
+        if (skuIndex.isCompleteMatch(scanSegment, 0, scanSegment.length())) {
+            submitScan();
+        }
+    }
 
+    private void addToCart(Product product, int qty) {
+        // Merges with the product's existing line, if any
+        int index = cart.add(product, qty);
+        pendingClientRef = null;
+        cartTable.scrollRectToVisible(cartTable.getCellRect(index, 0, true));
         updateTotal();
-        qtyField.setText("");
-        qtyField.requestFocus();
     }
 
     private void removeFromCart() {
@@ -218,27 +281,18 @@ public class SalesWindow extends JFrame {
             return;
         }
 
-        int productId = (int) cartModel.getValueAt(selectedRow, 0);
-
-        // Remove from table
-        cartModel.removeRow(selectedRow);
-
-        // Remove from cart items
-        cartItems.removeIf(item -> item.getProductId() == productId);
+        cart.removeAt(selectedRow);
+        pendingClientRef = null;
 
         updateTotal();
     }
 
     private void updateTotal() {
-        double total = 0;
-        for (SaleItem item : cartItems) {
-            total += item.getQty() * item.getPrice();
-        }
-        totalLabel.setText("Total: ₱" + String.format("%.2f", total));
+        totalLabel.setText("Total: ₱" + Money.format(cart.getTotalCents()));
     }
 
     private void completeSale() {
-        if (cartItems.isEmpty()) {
+        if (cart.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Cart is empty! Please add items before completing sale.",
                     "Empty Cart", JOptionPane.WARNING_MESSAGE);
             return;
@@ -265,30 +319,51 @@ public class SalesWindow extends JFrame {
 
             Sale sale = new Sale();
             sale.setAccountId(currentUser.getAccountId());
-            sale.setItems(cartItems);
+            sale.setItems(cart.toSaleItems());
 
-            double total = 0;
-            for (SaleItem item : cartItems) {
-                total += item.getQty() * item.getPrice();
-            }
-            sale.setTotalAmount(total);
+            long totalCents = cart.getTotalCents();
+            sale.setTotalCents(totalCents);
             sale.setPaymentMethod(paymentMethod);
-
-            saleDAO.addSale(sale); // save to DB
-
-            JOptionPane.showMessageDialog(this,
-                    "Sale completed successfully!\nTotal: ₱" + String.format("%.2f", total),
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
+            if (pendingClientRef == null) {
+                pendingClientRef = UUID.randomUUID().toString();
+            }
+            sale.setClientRef(pendingClientRef);
+
+            saleDAO.addSale(sale); // save to DB; a resubmit of a saved sale returns the stored one
+            pendingClientRef = null;
+
+            if (sale.getSaleId() == 0) {
+                // Database unreachable: kept in the local journal (see OfflineMode)
+                JOptionPane.showMessageDialog(this,
+                        "Sale saved offline.\nTotal: ₱" + Money.format(totalCents)
+                                + "\n\nIt will be synced when the database is back.",
+                        "Saved Offline",
+                        JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "Sale completed successfully!\nTotal: ₱" + Money.format(totalCents),
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
 
             // Clear cart
-            cartModel.setRowCount(0);
-            cartItems.clear();
+            cart.clear();
             updateTotal();
 
             // Optionally close window
             // dispose();
 
+        } catch (InsufficientStockException e) {
+            // Another terminal sold the last units; nothing was saved, the cart is kept
+            StringBuilder names = new StringBuilder();
+            for (int productId : e.getShortProductIds()) {
+                names.append("\n - ").append(cartProductName(productId)).append(" (ID ").append(productId).append(")");
+            }
+            JOptionPane.showMessageDialog(this,
+                    "Not enough stock to complete this sale:" + names
+                            + "\n\nPlease adjust the quantities and try again.",
+                    "Insufficient Stock",
+                    JOptionPane.WARNING_MESSAGE);
         } catch (Exception e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
@@ -297,4 +372,9 @@ public class SalesWindow extends JFrame {
                     JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    private String cartProductName(int productId) {
+        Cart.Line line = cart.findLine(productId);
+        return line != null ? line.getName() : "Product";
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ui;
 
 import dao.AccountDAO;
 import models.Account;
+import models.Permission;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -12,6 +13,7 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -22,10 +24,14 @@ public class UsersWindow extends JFrame {
     private JButton addButton, editButton, deleteButton, refreshButton;
     private JTextField searchField;
     private JLabel statusLabel;
+    private final AsyncLoader<List<Object[]>> userLoader = new AsyncLoader<>();
+    private final Account currentUser;
     private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_]{3,20}$");
     private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[A-Za-z])(?=.*\\d)[A-Za-z\\d@$!%*#?&]{6,}$");
 
-    public UsersWindow() {
+    public UsersWindow(Account currentUser) {
+        this.currentUser = currentUser;
+
         // --- Frame Setup ---
         setTitle("👥 User Management System");
         setSize(950, 600);
@@ -246,44 +252,45 @@ public class UsersWindow extends JFrame {
     }
 
     private void refreshData(ActionEvent e) {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                statusLabel.setText("Loading...");
-                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-                tableModel.setRowCount(0);
-                AccountDAO dao = new AccountDAO();
-                List<Account> users = dao.getAllAccounts();
-
-                for (Account u : users) {
-                    String roleDisplay = u.getRole() != null ? u.getRole().toUpperCase() : "N/A";
-                    String created = "—"; // Could add timestamp if available in Account model
-
-                    tableModel.addRow(new Object[]{
-                            u.getAccountId(),
-                            u.getUsername(),
-                            roleDisplay,
-                            u.getFirstName() != null && !u.getFirstName().isEmpty() ? u.getFirstName() : "—",
-                            u.getLastName() != null && !u.getLastName().isEmpty() ? u.getLastName() : "—",
-                            created
-                    });
-                }
+        statusLabel.setText("Loading...");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
-                updateStatusLabel();
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                statusLabel.setText("Error loading data");
-                JOptionPane.showMessageDialog(this,
-                        "Failed to load users:\n" + ex.getMessage(),
-                        "Database Error",
-                        JOptionPane.ERROR_MESSAGE);
-            } finally {
-                setCursor(Cursor.getDefaultCursor());
+        userLoader.load(() -> {
+            AccountDAO dao = new AccountDAO();
+            List<Account> users = dao.getAllAccounts();
+
+            List<Object[]> rows = new ArrayList<>(users.size());
+            for (Account u : users) {
+                String roleDisplay = u.getRole() != null ? u.getRole().toUpperCase() : "N/A";
+                String created = "—"; // Could add timestamp if available in Account model
+
+                rows.add(new Object[]{
+                        u.getAccountId(),
+                        u.getUsername(),
+                        roleDisplay,
+                        u.getFirstName() != null && !u.getFirstName().isEmpty() ? u.getFirstName() : "—",
+                        u.getLastName() != null && !u.getLastName().isEmpty() ? u.getLastName() : "—",
+                        created
+                });
             }
+            return rows;
+        }, rows -> {
+            AsyncLoader.replaceRows(tableModel, rows);
+            updateStatusLabel();
+            setCursor(Cursor.getDefaultCursor());
+        }, ex -> {
+            ex.printStackTrace();
+            statusLabel.setText("Error loading data");
+            setCursor(Cursor.getDefaultCursor());
+            JOptionPane.showMessageDialog(this,
+                    "Failed to load users:\n" + ex.getMessage(),
+                    "Database Error",
+                    JOptionPane.ERROR_MESSAGE);
         });
     }
 
     private void addUser(ActionEvent e) {
+        if (!AccessGuard.require(this, currentUser, Permission.MANAGE_USERS)) return;
         UserFormDialog dialog = new UserFormDialog(this, null);
         dialog.setVisible(true);
         if (dialog.isSuccess()) {
@@ -292,6 +299,7 @@ public class UsersWindow extends JFrame {
     }
 
     private void editUser(ActionEvent e) {
+        if (!AccessGuard.require(this, currentUser, Permission.MANAGE_USERS)) return;
         int row = userTable.getSelectedRow();
         if (row >= 0) {
             try {
@@ -318,6 +326,7 @@ public class UsersWindow extends JFrame {
     }
 
     private void deleteUser(ActionEvent e) {
+        if (!AccessGuard.require(this, currentUser, Permission.MANAGE_USERS)) return;
         int row = userTable.getSelectedRow();
         if (row >= 0) {
             int modelRow = userTable.convertRowIndexToModel(row);